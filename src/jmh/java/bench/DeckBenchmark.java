@@ -0,0 +1,46 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Shuffling and dealing one round's worth of cards
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+    private Object deck;
+
+    @Setup
+    public void setUp() throws Throwable {
+        deck = GameApi.NEW_DECK.invokeExact();
+    }
+
+    @Benchmark
+    public void shuffleAndDealRound(Blackhole bh) throws Throwable {
+        GameApi.DECK_SHUFFLE.invokeExact(deck);
+        for (int i = 0; i < 6; i++) {
+            bh.consume(GameApi.DECK_DRAW_CARD.invokeExact(deck));
+        }
+    }
+
+    @Benchmark
+    public Object newDeckPerRound() throws Throwable {
+        Object fresh = GameApi.NEW_DECK.invokeExact();
+        GameApi.DECK_SHUFFLE.invokeExact(fresh);
+        return fresh;
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ThreeCardLogic entry points used on every round
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluatorBenchmark {
+    private int[] codes;
+    private ArrayList<?>[] hands;
+    private int next;
+
+    @Setup
+    public void setUp() throws Throwable {
+        codes = HandPool.codes(7);
+        hands = new ArrayList<?>[HandPool.SIZE];
+        for (int i = 0; i < HandPool.SIZE; i++) {
+            hands[i] = GameApi.hand(codes[i * 3], codes[i * 3 + 1], codes[i * 3 + 2]);
+        }
+    }
+
+    @Benchmark
+    public int evalHandCodes() throws Throwable {
+        int i = (next++ & HandPool.MASK) * 3;
+        return (int) GameApi.EVAL_HAND_CODES.invokeExact(codes[i], codes[i + 1], codes[i + 2]);
+    }
+
+    @Benchmark
+    public int evalHandList() throws Throwable {
+        return (int) GameApi.EVAL_HAND_LIST.invokeExact((Object) hands[next++ & HandPool.MASK]);
+    }
+
+    @Benchmark
+    public int compareHands() throws Throwable {
+        int i = next++;
+        return (int) GameApi.COMPARE_HANDS_LIST.invokeExact((Object) hands[i & HandPool.MASK],
+                (Object) hands[(i + 1) & HandPool.MASK]);
+    }
+
+    @Benchmark
+    public boolean dealerQualifies() throws Throwable {
+        return (boolean) GameApi.DEALER_QUALIFIES_LIST.invokeExact((Object) hands[next++ & HandPool.MASK]);
+    }
+}
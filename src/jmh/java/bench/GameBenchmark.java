@@ -0,0 +1,49 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A full PokerGame round, including calculateResult's message building
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+    private Object deck;
+    private Object dealtGame;
+
+    @Setup
+    public void setUp() throws Throwable {
+        deck = GameApi.NEW_DECK.invokeExact();
+        dealtGame = GameApi.NEW_GAME.invokeExact(deck);
+        GameApi.GAME_PLACE_BETS.invokeExact(dealtGame, 10, 5);
+        GameApi.GAME_DEAL.invokeExact(dealtGame);
+        GameApi.GAME_PLAY.invokeExact(dealtGame);
+    }
+
+    @Benchmark
+    public Object calculateResult() throws Throwable {
+        return GameApi.GAME_RESULT.invokeExact(dealtGame);
+    }
+
+    @Benchmark
+    public Object playRound() throws Throwable {
+        Object game = GameApi.NEW_GAME.invokeExact(deck);
+        GameApi.GAME_PLACE_BETS.invokeExact(game, 10, 5);
+        GameApi.GAME_DEAL.invokeExact(game);
+        GameApi.GAME_PLAY.invokeExact(game);
+        return GameApi.GAME_RESULT.invokeExact(game);
+    }
+}
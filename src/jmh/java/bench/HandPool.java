@@ -0,0 +1,27 @@
+package bench;
+
+import java.util.SplittableRandom;
+
+// Fixed set of random hands, large enough to defeat branch prediction
+final class HandPool {
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    private HandPool() {}
+
+    // SIZE hands of three distinct card codes, packed three ints per hand
+    static int[] codes(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] codes = new int[SIZE * 3];
+        for (int i = 0; i < SIZE; i++) {
+            int c0 = random.nextInt(52);
+            int c1, c2;
+            do { c1 = random.nextInt(52); } while (c1 == c0);
+            do { c2 = random.nextInt(52); } while (c2 == c0 || c2 == c1);
+            codes[i * 3] = c0;
+            codes[i * 3 + 1] = c1;
+            codes[i * 3 + 2] = c2;
+        }
+        return codes;
+    }
+}
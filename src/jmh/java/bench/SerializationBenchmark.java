@@ -0,0 +1,62 @@
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Wire cost of a GAME_RESULT PokerInfo through ObjectOutputStream
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    private Object result;
+    private ByteArrayOutputStream buffer;
+    private ObjectOutputStream connection;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Object game = GameApi.NEW_GAME.invokeExact(GameApi.NEW_DECK.invokeExact());
+        GameApi.GAME_PLACE_BETS.invokeExact(game, 10, 5);
+        GameApi.GAME_DEAL.invokeExact(game);
+        GameApi.GAME_PLAY.invokeExact(game);
+        result = GameApi.GAME_RESULT.invokeExact(game);
+
+        buffer = new ByteArrayOutputStream(4096);
+        connection = new ObjectOutputStream(buffer);
+    }
+
+    // First message on a fresh stream: full class descriptors every time
+    @Benchmark
+    public int writeFreshStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(result);
+        oos.flush();
+        return out.size();
+    }
+
+    // Steady state on a long-lived stream that is reset after each message
+    @Benchmark
+    public int writeLongLivedStream() throws IOException {
+        buffer.reset();
+        connection.reset();
+        connection.writeObject(result);
+        connection.flush();
+        return buffer.size();
+    }
+}
@@ -0,0 +1,200 @@
+// AUTO_PLAY: a batch of rounds the server plays for one player, so bots and
+// high-volume clients are not limited by three round trips per round. The
+// request carries the ante, Pair Plus and number of rounds; every hand is
+// played by the Q-6-4 rule (play queen-six-four or better, otherwise fold) and
+// settled by PokerGame exactly as at a table. Each round is a numbered deal
+// (see DeckPool) holding only the dealer's cards and this seat's.
+//
+// Replies: an AUTO_RESULT every autoplay.reportEvery rounds covering the rounds
+// since the previous one, the last with gameState COMPLETE. With detail set each
+// round's GAME_RESULT is streamed as well. The seat sits out table rounds until
+// the batch ends; a dropped or resumed connection stops it, and so does a hand
+// journal that no longer accepts records.
+//
+// A client that falls behind (ClientHandler.isBacklogged) is downgraded: detail
+// results are skipped and progress reports wait, so the next one covers more
+// rounds. The final report is always sent.
+public class AutoPlay implements Runnable {
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETE = "COMPLETE";
+
+    private final PokerServer server;
+    private final ClientHandler handler;
+    private final PlayerSession session;
+    private final Table table;
+    private final int seat;
+    private final int ante;
+    private final int pairPlus;
+    private final int sixCard;
+    private final int rounds;
+    private final boolean detail;
+    private final int reportEvery;
+
+    // Counts since the last report
+    private int played, won, lost, pushed, notQualified, folded;
+    private long net, pairPlusPaid, sixCardPaid;
+    private boolean journalStopped;
+
+    private AutoPlay(PokerServer server, ClientHandler handler, PlayerSession session, PokerInfo request) {
+        this.server = server;
+        this.handler = handler;
+        this.session = session;
+        this.table = session.getTable();
+        this.seat = session.getSeat();
+        this.ante = request.getAnteBet();
+        this.pairPlus = request.getPairPlusBet();
+        this.sixCard = request.getSixCardBet();
+        this.rounds = request.getRounds();
+        this.detail = request.isDetail();
+        this.reportEvery = Math.max(1, server.getConfig().getAutoPlayReportEvery());
+    }
+
+    // Checks the request and takes the seat out of table play; null with a reason sent when refused
+    static AutoPlay start(PokerServer server, ClientHandler handler, PokerInfo request) {
+        PlayerSession session = handler.getSession();
+        int maxRounds = server.getConfig().getAutoPlayMaxRounds();
+        String refusal = null;
+        if (request.getRounds() < 1 || request.getRounds() > maxRounds) {
+            refusal = "Rounds must be between 1 and " + maxRounds;
+        }
+        if (refusal == null) {
+            refusal = Table.betRefusal(request.getAnteBet(), request.getPairPlusBet(), request.getSixCardBet(),
+                    session.getBankroll());
+        }
+        if (refusal == null && (session.getTable() == null || !session.getTable().startAutoPlay(session.getSeat()))) {
+            refusal = "Finish the current round first";
+        }
+        if (refusal != null) {
+            PokerInfo reply = new PokerInfo("AUTO_RESULT");
+            reply.setGameState(COMPLETE);
+            reply.setGameMessage(refusal);
+            reply.setBankroll(PlayerSession.toWire(session.getBankroll()));
+            handler.sendPokerInfo(reply);
+            return null;
+        }
+        return new AutoPlay(server, handler, session, request);
+    }
+
+    @Override
+    public void run() {
+        server.logGameEvent("Client #" + session.getId() + " auto-playing " + rounds + " rounds: Ante $" + ante +
+                ", Pair Plus $" + pairPlus + (sixCard > 0 ? ", 6 Card Bonus $" + sixCard : ""));
+        PokerGame game = new PokerGame(null);
+        byte[] order = new byte[52];
+        int[] playerCards = new int[3];
+        int[] dealerCards = new int[3];
+        HandJournal journal = server.getJournal();
+        ServerMetrics metrics = server.getMetrics();
+        long totalNet = 0;
+        int completed = 0;
+        try {
+            // Stops early when the bankroll no longer covers a round
+            while (completed < rounds && session.getConnection() == handler && !journalStopped
+                    && Table.betRefusal(ante, pairPlus, sixCard, session.getBankroll()) == null) {
+                if (journal != null) journal.awaitRoom();
+                game.resetGame();
+                game.placeBets(ante, pairPlus, sixCard);
+                long deal = server.nextDeal(order, seat);
+                DeckPool.deal(order, seat, playerCards, dealerCards);
+                game.dealHands(playerCards, dealerCards);
+                playRound(game, deal, journal);
+                metrics.roundCompleted();
+                completed++;
+                int sinceReport = played + folded;
+                if (sinceReport >= reportEvery && completed < rounds) {
+                    if (!handler.isBacklogged()) {
+                        totalNet += net;
+                        report(RUNNING);
+                    } else if (sinceReport % reportEvery == 0) {
+                        server.getMetrics().messageDowngraded();
+                    }
+                }
+            }
+            totalNet += net;
+        } finally {
+            // Before the last report, so the client can bet or start another batch as soon as it arrives
+            table.endAutoPlay(seat);
+        }
+        report(COMPLETE);
+        if (journalStopped) {
+            server.logGameEvent("Client #" + session.getId() + " auto-play stopped: hand journal stopped");
+        }
+        server.logGameEvent("Client #" + session.getId() + " auto-played " + completed + " rounds | Total: $" + totalNet);
+    }
+
+    private void playRound(PokerGame game, long deal, HandJournal journal) {
+        Paytable paytable = server.getPaytables().forTable(table.getId());
+        game.setPaytable(paytable);
+        int[] player = game.getPlayerCards();
+        int[] dealer = game.getDealerCards();
+        PokerInfo result;
+        int outcome;
+        int pairPlusWinnings = 0;
+        if (ThreeCardLogic.playsQ64(player[0], player[1], player[2])) {
+            game.makePlayWager();
+            int dealerKey = ThreeCardLogic.handKey(dealer[0], dealer[1], dealer[2]);
+            boolean dealerQualifies = ThreeCardLogic.qualifies(dealerKey);
+            result = game.calculateResult(dealerQualifies, dealerKey);
+            int playerKey = ThreeCardLogic.handKey(player[0], player[1], player[2]);
+            outcome = HandRecord.outcome(dealerQualifies, Integer.compare(playerKey, dealerKey));
+            pairPlusWinnings = paytable.pairPlusWinnings(ThreeCardLogic.evalHand(player[0], player[1], player[2]),
+                    pairPlus);
+            played++;
+            switch (outcome) {
+                case HandRecord.WIN: won++; break;
+                case HandRecord.LOSE: lost++; break;
+                case HandRecord.PUSH: pushed++; break;
+                default: notQualified++;
+            }
+        } else {
+            // Folding loses the Ante and Pair Plus, as at a table
+            result = game.fold();
+            outcome = HandRecord.FOLD;
+            folded++;
+        }
+        int winnings = result.getTotalWinnings();
+        net += winnings;
+        int sixCardWinnings = game.getSixCardWinnings();
+        pairPlusPaid += pairPlusWinnings;
+        sixCardPaid += sixCardWinnings;
+        session.settle(winnings);
+        server.getStats().record(paytable, player, ante, pairPlus, sixCard, game.getPlayBet(), winnings,
+                pairPlusWinnings, sixCardWinnings, outcome == HandRecord.FOLD);
+
+        if (journal != null) {
+            int advantage = server.getStrategy().playAdvantageCents(paytable, player, ante, pairPlus);
+            int flags = HandRecord.FLAG_AUTO_PLAY | (advantage > 0 ? HandRecord.FLAG_STRATEGY_PLAY : 0);
+            HandRecord record = new HandRecord(0, System.currentTimeMillis(), session.getId(), table.getId(), seat,
+                    outcome, deal, player.clone(), dealer.clone(), ante, pairPlus, sixCard, game.getPlayBet(), winnings,
+                    pairPlusWinnings, flags, advantage, paytable);
+            journalStopped = !journal.append(record);
+        }
+        if (detail) {
+            if (handler.isBacklogged()) {
+                server.getMetrics().messageDowngraded();
+            } else {
+                result.setSuccess(true);
+                handler.sendPokerInfo(result);
+            }
+        }
+    }
+
+    private void report(String state) {
+        PokerInfo report = new PokerInfo("AUTO_RESULT");
+        report.setRounds(played + folded);
+        report.setAnteBet(ante);
+        report.setPairPlusBet(pairPlus);
+        report.setSixCardBet(sixCard);
+        report.setTotalWinnings(PlayerSession.toWire(net));
+        report.setGameMessage(played + folded + " rounds: played " + played + " (won " + won + ", lost " + lost +
+                ", pushed " + pushed + ", dealer not qualified " + notQualified + "), folded " + folded +
+                " | Pair Plus paid $" + pairPlusPaid + (sixCard > 0 ? " | 6 Card Bonus paid $" + sixCardPaid : "")
+                + " | Net $" + net);
+        report.setGameState(state);
+        report.setSuccess(true);
+        report.setBankroll(PlayerSession.toWire(session.getBankroll()));
+        handler.sendPokerInfo(report);
+        played = won = lost = pushed = notQualified = folded = 0;
+        net = pairPlusPaid = sixCardPaid = 0;
+    }
+}
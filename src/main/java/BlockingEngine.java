@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Classic accept loop with one blocking ClientHandler per connection
+public class BlockingEngine implements ConnectionEngine {
+    private final PokerServer server;
+    private final ExecutorService executor; // null for a plain thread per client
+    private final String name;
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    private BlockingEngine(PokerServer server, ExecutorService executor, String name) {
+        this.server = server;
+        this.executor = executor;
+        this.name = name;
+    }
+
+    public static BlockingEngine threadPerConnection(PokerServer server) {
+        return new BlockingEngine(server, null, "thread per connection");
+    }
+
+    // Looked up reflectively so the server still builds for Java 11
+    public static BlockingEngine virtualThreads(PokerServer server) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new BlockingEngine(server, executor, "virtual threads");
+        } catch (ReflectiveOperationException e) {
+            server.logGameEvent("Virtual threads need Java 21 or later; using a cached thread pool");
+            return new BlockingEngine(server, Executors.newCachedThreadPool(), "cached thread pool");
+        }
+    }
+
+    @Override
+    public void bind(int port) throws IOException {
+        serverSocket = new ServerSocket(port);
+        running = true;
+    }
+
+    @Override
+    public void serve() {
+        while (running) {
+            try {
+                Socket clientSocket = serverSocket.accept();
+                clientSocket.setTcpNoDelay(true);
+                ClientHandler clientHandler = new ClientHandler(clientSocket, server, server.newSession());
+                server.addClientHandler(clientHandler);
+                if (executor != null) {
+                    executor.execute(clientHandler);
+                } else {
+                    new Thread(clientHandler).start();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    server.logGameEvent("Error accepting client: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null && !serverSocket.isClosed()) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
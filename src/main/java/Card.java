@@ -1,25 +1,64 @@
 import java.io.Serializable;
 
 public class Card implements Serializable {
-    private Suit suit;
-    private int value;
-    private boolean faceUp;
-    private String imagePath;
+    // Changed from the original class (-1298574222369186998L), which also carried
+    // faceUp and imagePath. Cards are now shared instances, so they cannot hold
+    // per-message face state; it travels in PokerInfo's playerFaceUp and
+    // dealerFaceUp bits instead. A client built with the old Card fails to read
+    // cards with an InvalidClassException rather than showing every card face
+    // down; Java-serialization clients must be rebuilt with this class.
+    private static final long serialVersionUID = 2L;
+
+    // One shared instance per card, indexed by code (suit * 13 + value - 1)
+    private static final Card[] CARDS = new Card[52];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (int value = 1; value <= 13; value++) {
+                Card card = new Card(suit, value);
+                CARDS[card.getCode()] = card;
+            }
+        }
+    }
+
+    private final Suit suit;
+    private final int value;
 
     public Card(Suit suit, int value) {
         this.suit = suit;
         this.value = value;
-        this.faceUp = false;
-        this.imagePath = "";
     }
 
-    // Getters and setters
+    // Interned lookups
+    public static Card of(int code) { return CARDS[code]; }
+    public static Card of(Suit suit, int value) { return CARDS[code(suit, value)]; }
+
+    public static int code(Suit suit, int value) {
+        return suit.ordinal() * 13 + value - 1;
+    }
+
+    // Getters
     public Suit getSuit() { return suit; }
     public int getValue() { return value; }
-    public boolean isFaceUp() { return faceUp; }
-    public void setFaceUp(boolean faceUp) { this.faceUp = faceUp; }
-    public String getImagePath() { return imagePath; }
-    public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+    public int getCode() { return code(suit, value); }
+
+    // Deserialized cards collapse back onto the shared instances
+    private Object readResolve() {
+        return of(suit, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Card)) return false;
+        Card other = (Card) o;
+        return suit == other.suit && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return getCode();
+    }
 
     @Override
     public String toString() {
@@ -36,4 +75,4 @@ public class Card implements Serializable {
             default: return String.valueOf(value);
         }
     }
-}
\ No newline at end of file
+}
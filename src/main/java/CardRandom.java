@@ -0,0 +1,38 @@
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Random source used by Deck to pick cards
+public interface CardRandom {
+
+    // Uniform int in [0, bound)
+    int nextInt(int bound);
+
+    // Fast, non thread safe generator; one per Deck
+    static CardRandom splittable() {
+        SplittableRandom random = new SplittableRandom();
+        return random::nextInt;
+    }
+
+    static CardRandom splittable(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return random::nextInt;
+    }
+
+    // Shared per-thread generator, nothing to allocate per Deck
+    static CardRandom threadLocal() {
+        return bound -> ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    // NIST SP 800-90A DRBG, falling back to the platform default
+    static CardRandom secure() {
+        SecureRandom random;
+        try {
+            random = SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            random = new SecureRandom();
+        }
+        return random::nextInt;
+    }
+}
@@ -1,102 +1,94 @@
 import java.io.*;
 import java.net.Socket;
-import java.util.ArrayList;
 
 public class ClientHandler implements Runnable {
-    private Socket clientSocket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private ProjectThreeServer server;
-    private int playerId;
-    private boolean running;
-    private PokerGame currentGame;
-
-    public ClientHandler(Socket socket, ProjectThreeServer server, int playerId) {
+    private Socket clientSocket; // blocking engines only
+    private volatile PokerTransport transport;
+    private PokerServer server;
+    private volatile PlayerSession session; // replaced when the client resumes an earlier session
+    private volatile boolean running;
+
+    // Blocking connection; streams are opened in run() so the accept loop never waits on a client
+    public ClientHandler(Socket socket, PokerServer server, PlayerSession session) {
         this.clientSocket = socket;
         this.server = server;
-        this.playerId = playerId;
+        this.session = session;
         this.running = true;
+        session.attach(this);
+    }
 
-        try {
-            out = new ObjectOutputStream(clientSocket.getOutputStream());
-            in = new ObjectInputStream(clientSocket.getInputStream());
-        } catch (IOException e) {
-            System.err.println("Error creating streams: " + e.getMessage());
-            closeConnection();
-        }
+    // Connection driven by an event loop, which calls handleClientMessage itself
+    public ClientHandler(PokerTransport transport, PokerServer server, PlayerSession session) {
+        this.transport = transport;
+        this.server = server;
+        this.session = session;
+        this.running = true;
+        session.attach(this);
     }
 
     @Override
     public void run() {
         try {
+            SocketTransport socketTransport = new SocketTransport(clientSocket, server.getConfig(), server.getMetrics(),
+                    server.getWireWriters(), this::sendFailed);
+            transport = socketTransport;
             while (running) {
-                PokerInfo clientInfo = (PokerInfo) in.readObject();
+                PokerInfo clientInfo = socketTransport.receive();
                 handleClientMessage(clientInfo);
             }
         } catch (IOException | ClassNotFoundException e) {
             if (running) {
-                System.err.println("Client #" + playerId + " disconnected: " + e.getMessage());
+                System.err.println("Client #" + getPlayerId() + " disconnected: " + e.getMessage());
             }
         } finally {
             closeConnection();
         }
     }
 
-    private void handleClientMessage(PokerInfo info) {
+    void handleClientMessage(PokerInfo info) {
+        long start = System.nanoTime();
+        dispatch(info);
+        server.getMetrics().recordHandled(info.getMessageType(), System.nanoTime() - start);
+    }
+
+    private void dispatch(PokerInfo info) {
+        if ("RESUME".equals(info.getMessageType())) {
+            server.resumeSession(this, info.getSessionToken());
+            return;
+        }
+        Table table = session.getTable();
+        int seat = session.getSeat();
+        if (table == null) return;
         switch (info.getMessageType()) {
             case "PLACE_BETS":
-                processBet(info);
+                table.placeBet(seat, info.getAnteBet(), info.getPairPlusBet(), info.getSixCardBet());
                 break;
             case "PLAY":
-                processPlay(info);
+                table.play(seat);
                 break;
             case "FOLD":
-                processFold();
+                table.fold(seat);
                 break;
             case "NEW_GAME":  // ADD THIS CASE
-                // Reset for new game - server will create new PokerGame on next PLACE_BETS
-                server.logGameEvent("Client #" + playerId + " starting new game");
+                // Reset for new game - the table deals again on the next PLACE_BETS
+                server.logGameEvent("Client #" + getPlayerId() + " starting new game");
                 break;
             case "CONTINUE":  // ADD THIS
-                processContinue();
+                table.collect(seat);
+                break;
+            case "AUTO_PLAY":
+                server.startAutoPlay(this, info);
                 break;
         }
     }
 
-    private void processContinue() {
-        if (currentGame != null) {
-            // Calculate and send results now that player is ready
-            PokerInfo result = currentGame.calculateResult();
-            result.setMessageType("GAME_RESULT");
-            sendPokerInfo(result);
-
-            String gameLog = buildGameLog(result);
-            server.logGameEvent("Client #" + playerId + " - " + gameLog);
-
-            PokerInfo roundComplete = new PokerInfo("ROUND_COMPLETE");
-            roundComplete.setTotalWinnings(result.getTotalWinnings());
-            roundComplete.setGameMessage(result.getGameMessage());
-            sendPokerInfo(roundComplete);
-        }
-    }
-
-    private void processBet(PokerInfo clientInfo) {
-        currentGame = new PokerGame();
-        currentGame.placeBets(clientInfo.getAnteBet(), clientInfo.getPairPlusBet());
-        currentGame.dealHands();
-
-        PokerInfo response = new PokerInfo("DEAL_CARDS");
-        response.setPlayerHand(currentGame.getPlayerHand());
-        response.setDealerHand(currentGame.getDealerHand());
-        response.setSuccess(true);
+    // null until a blocking connection has finished its handshake
+    public PokerTransport getTransport() { return transport; }
 
-        sendPokerInfo(response);
-
-        server.logGameEvent("Client #" + playerId + " placed bets: Ante $" +
-                clientInfo.getAnteBet() + ", Pair Plus $" + clientInfo.getPairPlusBet());
-    }
+    public PlayerSession getSession() { return session; }
+    void setSession(PlayerSession session) { this.session = session; }
 
-    private String getHandTypeName(int handRank) {
+    static String getHandTypeName(int handRank) {
         switch (handRank) {
             case ThreeCardLogic.STRAIGHT_FLUSH: return "Straight Flush";
             case ThreeCardLogic.THREE_OF_A_KIND: return "Three of a Kind";
@@ -107,27 +99,7 @@ public class ClientHandler implements Runnable {
         }
     }
 
-    private void processPlay(PokerInfo clientInfo) {
-        if (currentGame != null) {
-            currentGame.makePlayWager();
-
-            // Show dealer cards
-            PokerInfo showDealer = new PokerInfo("SHOW_DEALER");
-            showDealer.setDealerHand(currentGame.getDealerHand());
-
-
-            int dealerHandRank = ThreeCardLogic.evalHand(currentGame.getDealerHand());
-            String dealerHandType = getHandTypeName(dealerHandRank);
-            boolean dealerQualifies = ThreeCardLogic.dealerQualifies(currentGame.getDealerHand());
-
-            showDealer.setGameMessage("Dealer has: " + dealerHandType + " | Qualifies: " + (dealerQualifies ? "YES" : "NO"));
-            sendPokerInfo(showDealer);
-
-            server.logGameEvent("Client #" + playerId + " playing - dealer cards revealed");
-
-        }
-    }
-    private String buildGameLog(PokerInfo result) {
+    static String buildGameLog(PokerInfo result) {
         StringBuilder log = new StringBuilder();
 
         //check result message for log
@@ -156,49 +128,43 @@ public class ClientHandler implements Runnable {
         return log.toString();
     }
 
-    private void processFold() {
-        if (currentGame != null) {
-            int totalLoss = currentGame.getAnteBet() + currentGame.getPairPlusBet();
-
-            PokerInfo result = new PokerInfo("GAME_RESULT");
-            result.setGameMessage("You folded and lost your Ante and Pair Plus bets.");
-            result.setTotalWinnings(-totalLoss);
-            sendPokerInfo(result);
-
-            //round complete
-            PokerInfo roundComplete = new PokerInfo("ROUND_COMPLETE");
-            roundComplete.setTotalWinnings(-totalLoss);
-            roundComplete.setGameMessage("Folded - lost bets");
-            sendPokerInfo(roundComplete);
-
-            server.logGameEvent("Client #" + playerId + " folded - lost: $" + totalLoss);
-        }
-    }
-
+    // Queues the message; a client too far behind is disconnected, see PokerTransport
     public void sendPokerInfo(PokerInfo info) {
         try {
-            out.writeObject(info);
-            out.flush();
+            long start = System.nanoTime();
+            transport.send(info);
+            server.getMetrics().recordSent(info.getMessageType(), System.nanoTime() - start);
         } catch (IOException e) {
-            System.err.println("Error sending data to client #" + playerId + ": " + e.getMessage());
-            closeConnection();
+            sendFailed(e);
         }
     }
 
+    private void sendFailed(IOException e) {
+        System.err.println("Error sending data to client #" + getPlayerId() + ": " + e.getMessage());
+        closeConnection();
+    }
+
+    // Past half of wire.queueLimit under the downgrade policy, optional output should be skipped
+    public boolean isBacklogged() {
+        PokerTransport current = transport;
+        return current != null && server.getConfig().getWireSlowClient().equals("downgrade")
+                && current.getBacklog() >= server.getConfig().getWireQueueLimit() / 2;
+    }
+
     public void closeConnection() {
+        if (!running) return;
         running = false;
         try {
-            if (in != null) in.close();
-            if (out != null) out.close();
+            if (transport != null) transport.close();
             if (clientSocket != null) clientSocket.close();
         } catch (IOException e) {
-            System.err.println("Error closing connection for client #" + playerId + ": " + e.getMessage());
+            System.err.println("Error closing connection for client #" + getPlayerId() + ": " + e.getMessage());
         } finally {
             server.removeClientHandler(this);
         }
     }
 
     public int getPlayerId() {
-        return playerId;
+        return session.getId();
     }
 }
\ No newline at end of file
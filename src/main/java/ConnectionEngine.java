@@ -0,0 +1,27 @@
+import java.io.IOException;
+
+// Accepts client connections and drives their ClientHandlers
+public interface ConnectionEngine {
+
+    // Opens the listening socket; errors here mean the server failed to start
+    void bind(int port) throws IOException;
+
+    // Accepts connections until stop() is called
+    void serve();
+
+    void stop();
+
+    String getName();
+
+    // thread: one platform thread per client (original behaviour)
+    // virtual: one virtual thread per client, on Java 21 or later
+    // nio: selector event loops with length-prefixed frames
+    static ConnectionEngine create(String name, PokerServer server) {
+        switch (name.toLowerCase()) {
+            case "thread": return BlockingEngine.threadPerConnection(server);
+            case "virtual": return BlockingEngine.virtualThreads(server);
+            case "nio": return new NioEngine(server, Runtime.getRuntime().availableProcessors());
+            default: throw new IllegalArgumentException("Unknown connection engine: " + name);
+        }
+    }
+}
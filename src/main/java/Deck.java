@@ -1,35 +1,44 @@
-import java.util.ArrayList;
-import java.util.Collections;
-
 public class Deck {
-    private ArrayList<Card> cards;
+    private final byte[] cards;
+    private final CardRandom random;
     private int currentIndex;
 
     public Deck() {
-        cards = new ArrayList<>();
+        this(CardRandom.splittable());
+    }
+
+    public Deck(CardRandom random) {
+        this.cards = new byte[52];
+        this.random = random;
         currentIndex = 0;
         initializeDeck();
     }
 
     private void initializeDeck() {
-        for (Suit suit : Suit.values()) {
-            for (int value = 1; value <= 13; value++) {
-                cards.add(new Card(suit, value));
-            }
+        for (int code = 0; code < cards.length; code++) {
+            cards[code] = (byte) code;
         }
     }
 
+    // Shuffling is lazy: each draw swaps a random remaining card into place
+    // (Fisher-Yates one step at a time), so a round only pays for the cards it deals
     public void shuffle() {
-        Collections.shuffle(cards);
         currentIndex = 0;
     }
 
-    public Card drawCard() {
-        if (currentIndex >= cards.size()) {
+    public int drawCode() {
+        if (currentIndex >= cards.length) {
             resetDeck();
-            shuffle();
         }
-        return cards.get(currentIndex++);
+        int pick = currentIndex + random.nextInt(cards.length - currentIndex);
+        byte code = cards[pick];
+        cards[pick] = cards[currentIndex];
+        cards[currentIndex++] = code;
+        return code;
+    }
+
+    public Card drawCard() {
+        return Card.of(drawCode());
     }
 
     public void resetDeck() {
@@ -38,6 +47,6 @@ public class Deck {
     }
 
     public int cardsRemaining() {
-        return cards.size() - currentIndex;
+        return cards.length - currentIndex;
     }
-}
\ No newline at end of file
+}
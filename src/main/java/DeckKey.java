@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Set;
+import javax.crypto.spec.SecretKeySpec;
+
+// The secret every deal is shuffled from (see DeckPool). Anyone holding it can
+// deal every hand again, so it lives only in its key file: 32 random bytes as
+// hex, created on first start readable by the owner alone, and refused when
+// others can read it. The journal records just the fingerprint, the first 8
+// bytes of its SHA-256, so a reader can tell which key a segment needs.
+//
+// deck.keyFile=none keeps a random key in memory for this run only; its hands
+// cannot be dealt again once the server stops.
+public final class DeckKey {
+    static final int BYTES = 32;
+    private static final int MIN_BYTES = 16;
+
+    private final SecretKeySpec spec;
+    private final long fingerprint;
+
+    DeckKey(byte[] key) {
+        if (key.length < MIN_BYTES) {
+            throw new IllegalArgumentException("Deck key must be at least " + MIN_BYTES * 8 + " bits");
+        }
+        this.spec = new SecretKeySpec(key, "HmacSHA256");
+        this.fingerprint = fingerprint(key);
+    }
+
+    public static DeckKey random() {
+        byte[] key = new byte[BYTES];
+        new SecureRandom().nextBytes(key);
+        return new DeckKey(key);
+    }
+
+    public static DeckKey open(ServerConfig config) throws IOException {
+        if (config.getDeckKeyFile().equals("none")) return random();
+        return load(Paths.get(config.getDeckKeyFile()), true);
+    }
+
+    // Reads the key file, creating it when create is set and the file does not exist
+    public static DeckKey load(Path file, boolean create) throws IOException {
+        if (create && !Files.exists(file)) {
+            DeckKey key = random();
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            if (ownerOnlySupported(file)) {
+                Files.createFile(file,
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } else {
+                Files.createFile(file);
+            }
+            Files.write(file, hex(key.spec.getEncoded()).getBytes(StandardCharsets.US_ASCII));
+            return key;
+        }
+        if (ownerOnlySupported(file)) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+            permissions.retainAll(Set.of(PosixFilePermission.GROUP_READ, PosixFilePermission.OTHERS_READ));
+            if (!permissions.isEmpty()) {
+                throw new IOException("Deck key file " + file + " is readable by others; chmod 600 it");
+            }
+        }
+        String text = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        if (text.length() % 2 != 0 || !text.matches("[0-9a-fA-F]*")) {
+            throw new IOException("Deck key file " + file + " does not hold a hex key");
+        }
+        byte[] key = new byte[text.length() / 2];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) Integer.parseInt(text.substring(2 * i, 2 * i + 2), 16);
+        }
+        try {
+            return new DeckKey(key);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Deck key file " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean ownerOnlySupported(Path file) {
+        return file.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static long fingerprint(byte[] key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | digest[i] & 0xFF;
+            }
+            return value;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) text.append(String.format("%02x", b & 0xFF));
+        return text.append('\n').toString();
+    }
+
+    SecretKeySpec spec() { return spec; }
+    public long getFingerprint() { return fingerprint; }
+
+    @Override
+    public String toString() {
+        return String.format("deck key %016x", fingerprint);
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.crypto.Mac;
+
+// Every deal's card order, numbered. Order n is a Fisher-Yates shuffle driven
+// by HMAC-SHA256 under the DeckKey over (nonce, n, block) (see order()), so any
+// round can be dealt again from the key, the nonce and its deal number alone,
+// and the numbers and dealt cards say nothing about the key or other orders.
+// The hand journal stores the number instead of the cards, and the nonce and
+// the key's fingerprint in its segment headers; the key stays in its own file.
+//
+// Numbers start at 0 on every start, so each start draws a fresh nonce: a key
+// kept across restarts never deals a past order again.
+//
+// Producer threads make orders ahead of time, so a table deals a burst of rounds
+// without shuffling under its lock. Orders wait in a bounded RingBuffer; a deal
+// that finds it empty, or deck.pool=0, makes the next numbered order inline.
+//
+// A deal lays its cards out as deal() does: the dealer's three first, then three
+// per seat in seat order, whether or not the seat is dealt in.
+public class DeckPool {
+    private final RingBuffer<Order> ring; // null when the pool is off
+    private final DeckKey key;
+    private final long nonce;
+    private final AtomicLong nextNumber = new AtomicLong();
+    private final LongAdder shuffled = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Thread[] producers;
+    private volatile boolean running = true;
+
+    // One shuffled deck and the number it was made from
+    public static final class Order {
+        public final long number;
+        public final byte[] cards;
+
+        Order(long number, byte[] cards) {
+            this.number = number;
+            this.cards = cards;
+        }
+    }
+
+    public DeckPool(int capacity, int threads, DeckKey key, long nonce) {
+        this.ring = capacity > 0 ? new RingBuffer<>(capacity) : null;
+        this.key = key;
+        this.nonce = nonce;
+        this.producers = new Thread[capacity > 0 ? Math.max(1, threads) : 0];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(this::produce, "deck-pool-" + (i + 1));
+            producers[i].setDaemon(true);
+            producers[i].start();
+        }
+    }
+
+    // Throws IllegalStateException when the key file cannot be read or created; nothing can be dealt without it
+    public static DeckPool open(ServerConfig config) {
+        DeckKey key;
+        try {
+            key = DeckKey.open(config);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Deck key refused: " + e.getMessage(), e);
+        }
+        return new DeckPool(Math.max(0, config.getDeckPool()), config.getDeckPoolThreads(), key,
+                new SecureRandom().nextLong());
+    }
+
+    // The card order with this number, as the producers make it
+    public static byte[] order(DeckKey key, long nonce, long number) {
+        byte[] cards = new byte[52];
+        order(key, nonce, number, cards, cards.length);
+        return cards;
+    }
+
+    // The first count cards of the order with this number; the shuffle runs front to back,
+    // so a deal that needs only a few cards stops early and still matches the full order
+    public static void order(DeckKey key, long nonce, long number, byte[] cards, int count) {
+        KeyStream random = KEY_STREAM.get().reset(key, nonce, number);
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = (byte) i;
+        }
+        for (int i = 0; i < Math.min(count, cards.length - 1); i++) {
+            int j = i + random.nextInt(cards.length - i);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+    }
+
+    // Cards an order needs to deal this seat
+    public static int cardsFor(int seat) {
+        return 3 * seat + 6;
+    }
+
+    // The dealer's cards and one seat's from a dealt order; player may be null for the dealer alone
+    public static void deal(byte[] order, int seat, int[] player, int[] dealer) {
+        for (int i = 0; i < 3; i++) {
+            dealer[i] = order[i];
+            if (player != null) player[i] = order[3 * seat + 3 + i];
+        }
+    }
+
+    private static final ThreadLocal<KeyStream> KEY_STREAM = ThreadLocal.withInitial(KeyStream::new);
+
+    // HMAC-SHA256(key, nonce || number || block) for block 0, 1, ..., read as 32-bit ints; one per
+    // thread, keyed again only when the key changes
+    private static final class KeyStream {
+        private final Mac mac;
+        private final byte[] input = new byte[24];
+        private final byte[] block = new byte[32];
+        private DeckKey key;
+        private long blockNumber;
+        private int position;
+
+        KeyStream() {
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            }
+        }
+
+        KeyStream reset(DeckKey key, long nonce, long number) {
+            if (this.key != key) {
+                try {
+                    mac.init(key.spec());
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+                this.key = key;
+            }
+            putLong(input, 0, nonce);
+            putLong(input, 8, number);
+            blockNumber = 0;
+            position = block.length;
+            return this;
+        }
+
+        // Uniform in [0, bound): values past the last whole multiple of bound are drawn again
+        int nextInt(int bound) {
+            int limit = Integer.MAX_VALUE - Integer.MAX_VALUE % bound;
+            int value;
+            do {
+                value = nextBits() >>> 1;
+            } while (value >= limit);
+            return value % bound;
+        }
+
+        private int nextBits() {
+            if (position == block.length) {
+                putLong(input, 16, blockNumber++);
+                mac.update(input);
+                try {
+                    mac.doFinal(block, 0);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+                position = 0;
+            }
+            int value = (block[position] & 0xFF) << 24 | (block[position + 1] & 0xFF) << 16
+                    | (block[position + 2] & 0xFF) << 8 | (block[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        private static void putLong(byte[] bytes, int offset, long value) {
+            for (int i = 7; i >= 0; i--) {
+                bytes[offset + i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+    }
+
+    // Copies the next ready order into cards, or makes the next numbered one inline when the
+    // pool is dry; returns the order's number
+    public long next(byte[] cards) {
+        Order order = ring != null ? ring.poll() : null;
+        if (order == null) {
+            misses.increment();
+            long number = nextNumber.getAndIncrement();
+            order(key, nonce, number, cards, cards.length);
+            return number;
+        }
+        System.arraycopy(order.cards, 0, cards, 0, cards.length);
+        return order.number;
+    }
+
+    // A numbered order dealing only the given seat, shuffled just as far as that seat's cards (AUTO_PLAY)
+    public long next(byte[] cards, int seat) {
+        long number = nextNumber.getAndIncrement();
+        order(key, nonce, number, cards, cardsFor(seat));
+        return number;
+    }
+
+    private void produce() {
+        while (running) {
+            long number = nextNumber.getAndIncrement();
+            Order order = new Order(number, order(key, nonce, number));
+            while (!ring.offer(order)) {
+                // Full: check again shortly, tables take one order per round
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                if (!running) return;
+            }
+            shuffled.increment();
+        }
+    }
+
+    public void close() {
+        running = false;
+        for (Thread producer : producers) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    public DeckKey getKey() { return key; }
+    public long getNonce() { return nonce; }
+    public int getDepth() { return ring != null ? ring.size() : 0; }
+    public int getCapacity() { return ring != null ? ring.capacity() : 0; }
+    public long getShuffledCount() { return shuffled.sum(); }
+    public long getMissCount() { return misses.sum(); }
+}
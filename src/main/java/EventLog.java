@@ -0,0 +1,119 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Game event pipeline. Producers drop events into a bounded ring and never block;
+// when it is full the event is counted as dropped. One consumer thread drains the
+// ring at a fixed rate and hands each batch to every sink, so a burst of events
+// costs the UI one update per frame instead of one per event.
+public class EventLog {
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final int MAX_BATCH = 4096;
+
+    private final RingBuffer<Entry> ring;
+    private final long intervalNanos;
+    private final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private long droppedReported;
+
+    private static final class Entry {
+        final long timeMillis;
+        final String message;
+
+        Entry(long timeMillis, String message) {
+            this.timeMillis = timeMillis;
+            this.message = message;
+        }
+    }
+
+    public EventLog(int capacity, int framesPerSecond) {
+        this.ring = new RingBuffer<>(capacity);
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, framesPerSecond);
+        this.consumer = new Thread(this::consume, "event-log");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void addSink(LogSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(LogSink sink) {
+        sinks.remove(sink);
+    }
+
+    // Never blocks; returns false if the event was dropped
+    public boolean publish(String message) {
+        if (ring.offer(new Entry(System.currentTimeMillis(), message))) {
+            published.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public long getPublishedCount() { return published.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public int getBacklog() { return ring.size(); }
+
+    // Flushes what is queued, then closes the sinks
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (LogSink sink : sinks) {
+            sink.close();
+        }
+    }
+
+    private void consume() {
+        List<String> batch = new ArrayList<>();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            drainOnce(batch);
+        }
+        while (drainOnce(batch) > 0) {
+            // flush the remainder on shutdown
+        }
+    }
+
+    private int drainOnce(List<String> batch) {
+        int total = 0;
+        int count;
+        do {
+            batch.clear();
+            count = ring.drain(entry -> batch.add(
+                    "[" + TIME.format(Instant.ofEpochMilli(entry.timeMillis)) + "] " + entry.message), MAX_BATCH);
+            long droppedNow = dropped.get();
+            if (droppedNow != droppedReported) {
+                batch.add("(" + (droppedNow - droppedReported) + " log events dropped, log buffer full)");
+                droppedReported = droppedNow;
+            }
+            if (!batch.isEmpty()) {
+                for (LogSink sink : sinks) {
+                    try {
+                        sink.write(batch);
+                    } catch (RuntimeException e) {
+                        System.err.println("Log sink failed: " + e.getMessage());
+                    }
+                }
+            }
+            total += count;
+        } while (count == MAX_BATCH);
+        return total;
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Five-card poker hands, for the 6 Card Bonus side bet: the best five of the
+// player's three cards and the dealer's three.
+//
+// Evaluation is two table lookups, no branches on ranks and no allocation. Each
+// rank has a key chosen so that every multiset of five ranks sums to a different
+// number, which makes the sum a perfect hash into RANKED; flushes are looked up
+// by their 13-bit rank mask instead. Both tables hold a value from 1 (7-5-4-3-2)
+// to 7462 (royal flush), one per distinct five-card hand strength, so hands
+// compare as ints.
+public class FiveCardLogic {
+
+    // Hand categories, weakest first
+    public static final int HIGH_CARD = 0;
+    public static final int PAIR = 1;
+    public static final int TWO_PAIR = 2;
+    public static final int THREE_OF_A_KIND = 3;
+    public static final int STRAIGHT = 4;
+    public static final int FLUSH = 5;
+    public static final int FULL_HOUSE = 6;
+    public static final int FOUR_OF_A_KIND = 7;
+    public static final int STRAIGHT_FLUSH = 8;
+    public static final int ROYAL_FLUSH = 9;
+    public static final int CATEGORY_COUNT = 10;
+
+    private static final String[] NAMES = {"High Card", "Pair", "Two Pair", "Three of a Kind", "Straight", "Flush",
+            "Full House", "Four of a Kind", "Straight Flush", "Royal Flush"};
+
+    // Distinct five-card hand strengths
+    public static final int VALUE_COUNT = 7462;
+
+    // Smallest keys, found greedily, giving every multiset of up to five ranks (2 to Ace) a distinct sum
+    private static final int[] RANK_KEYS = {0, 1, 5, 22, 94, 312, 992, 2422, 5624, 12522, 19998, 43258, 79415};
+
+    private static final short[] RANKED = new short[4 * RANK_KEYS[12] + RANK_KEYS[11] + 1];
+    private static final short[] FLUSHES = new short[1 << 13];
+    private static final byte[] CATEGORIES = new byte[VALUE_COUNT + 1];
+
+    // Per card code (suit * 13 + value - 1)
+    private static final int[] CARD_KEY = new int[52];
+    private static final int[] CARD_RANK_BIT = new int[52];
+    private static final int[] CARD_SUIT = new int[52]; // one count per suit, a nibble each
+
+    static {
+        for (int code = 0; code < 52; code++) {
+            int rank = (code % 13 + 12) % 13; // Ace high: 2 is 0, Ace is 12
+            CARD_KEY[code] = RANK_KEYS[rank];
+            CARD_RANK_BIT[code] = 1 << rank;
+            CARD_SUIT[code] = 1 << 4 * (code / 13);
+        }
+
+        // Strength of every hand as category, then ranks in order of importance, a nibble each
+        int[] strengths = new int[RANKED.length];
+        int[] flushStrengths = new int[FLUSHES.length];
+        fillRanked(new int[13], 0, 5, strengths);
+        for (int mask = 0; mask < FLUSHES.length; mask++) {
+            if (Integer.bitCount(mask) == 5) flushStrengths[mask] = strength(countsOf(mask), true);
+        }
+
+        // Replace strengths by their position among the distinct ones
+        int[] distinct = IntStream.concat(Arrays.stream(strengths), Arrays.stream(flushStrengths))
+                .filter(s -> s != 0).distinct().sorted().toArray();
+        if (distinct.length != VALUE_COUNT) throw new IllegalStateException("Rank keys are not a perfect hash");
+        for (int i = 0; i < RANKED.length; i++) {
+            if (strengths[i] != 0) RANKED[i] = (short) (Arrays.binarySearch(distinct, strengths[i]) + 1);
+        }
+        for (int mask = 0; mask < FLUSHES.length; mask++) {
+            if (flushStrengths[mask] != 0) {
+                FLUSHES[mask] = (short) (Arrays.binarySearch(distinct, flushStrengths[mask]) + 1);
+            }
+        }
+        for (int value = 1; value <= VALUE_COUNT; value++) {
+            CATEGORIES[value] = (byte) (distinct[value - 1] >>> 20);
+        }
+        CATEGORIES[VALUE_COUNT] = ROYAL_FLUSH;
+    }
+
+    // Five distinct card codes, in any order
+    public static int evalFive(int c0, int c1, int c2, int c3, int c4) {
+        int suits = CARD_SUIT[c0] + CARD_SUIT[c1] + CARD_SUIT[c2] + CARD_SUIT[c3] + CARD_SUIT[c4];
+        if (((suits + 0x3333) & 0x8888) != 0) { // a suit holds five
+            return FLUSHES[CARD_RANK_BIT[c0] | CARD_RANK_BIT[c1] | CARD_RANK_BIT[c2] | CARD_RANK_BIT[c3]
+                    | CARD_RANK_BIT[c4]];
+        }
+        return RANKED[CARD_KEY[c0] + CARD_KEY[c1] + CARD_KEY[c2] + CARD_KEY[c3] + CARD_KEY[c4]];
+    }
+
+    // Best five of six distinct card codes: each five is the six-card key sum less one card
+    public static int bestOfSix(int c0, int c1, int c2, int c3, int c4, int c5) {
+        int suits = CARD_SUIT[c0] + CARD_SUIT[c1] + CARD_SUIT[c2] + CARD_SUIT[c3] + CARD_SUIT[c4] + CARD_SUIT[c5];
+        if (((suits + 0x3333) & 0x8888) != 0) {
+            // Five or six of one suit leave at most a pair besides, so the flush is the best hand
+            return bestFlush(suits, c0, c1, c2, c3, c4, c5);
+        }
+        int sum = CARD_KEY[c0] + CARD_KEY[c1] + CARD_KEY[c2] + CARD_KEY[c3] + CARD_KEY[c4] + CARD_KEY[c5];
+        int best = RANKED[sum - CARD_KEY[c0]];
+        best = Math.max(best, RANKED[sum - CARD_KEY[c1]]);
+        best = Math.max(best, RANKED[sum - CARD_KEY[c2]]);
+        best = Math.max(best, RANKED[sum - CARD_KEY[c3]]);
+        best = Math.max(best, RANKED[sum - CARD_KEY[c4]]);
+        return Math.max(best, RANKED[sum - CARD_KEY[c5]]);
+    }
+
+    public static int bestOfSix(int[] player, int[] dealer) {
+        return bestOfSix(player[0], player[1], player[2], dealer[0], dealer[1], dealer[2]);
+    }
+
+    public static int category(int value) {
+        return CATEGORIES[value];
+    }
+
+    public static String name(int category) {
+        return NAMES[category];
+    }
+
+    private static int bestFlush(int suits, int c0, int c1, int c2, int c3, int c4, int c5) {
+        int suit = Integer.numberOfTrailingZeros((suits + 0x3333) & 0x8888) >>> 2;
+        int flushSuit = 1 << 4 * suit;
+        int mask = (CARD_SUIT[c0] == flushSuit ? CARD_RANK_BIT[c0] : 0)
+                | (CARD_SUIT[c1] == flushSuit ? CARD_RANK_BIT[c1] : 0)
+                | (CARD_SUIT[c2] == flushSuit ? CARD_RANK_BIT[c2] : 0)
+                | (CARD_SUIT[c3] == flushSuit ? CARD_RANK_BIT[c3] : 0)
+                | (CARD_SUIT[c4] == flushSuit ? CARD_RANK_BIT[c4] : 0)
+                | (CARD_SUIT[c5] == flushSuit ? CARD_RANK_BIT[c5] : 0);
+        if (Integer.bitCount(mask) == 5) return FLUSHES[mask];
+        int best = 0;
+        for (int rest = mask; rest != 0; rest &= rest - 1) {
+            best = Math.max(best, FLUSHES[mask & ~(rest & -rest)]);
+        }
+        return best;
+    }
+
+    // Every multiset of five ranks with at most four of each
+    private static void fillRanked(int[] counts, int rank, int left, int[] strengths) {
+        if (left == 0) {
+            int sum = 0;
+            for (int r = 0; r < 13; r++) sum += counts[r] * RANK_KEYS[r];
+            if (strengths[sum] != 0) throw new IllegalStateException("Rank keys are not a perfect hash");
+            strengths[sum] = strength(counts, false);
+            return;
+        }
+        if (rank == 13) return;
+        for (int count = Math.min(4, left); count >= 0; count--) {
+            counts[rank] = count;
+            fillRanked(counts, rank + 1, left - count, strengths);
+        }
+        counts[rank] = 0;
+    }
+
+    private static int[] countsOf(int mask) {
+        int[] counts = new int[13];
+        for (int r = 0; r < 13; r++) counts[r] = mask >>> r & 1;
+        return counts;
+    }
+
+    // Reference evaluation used to fill the tables
+    private static int strength(int[] counts, boolean flush) {
+        int mask = 0;
+        for (int r = 0; r < 13; r++) {
+            if (counts[r] > 0) mask |= 1 << r;
+        }
+        int straightHigh = -1;
+        if (Integer.bitCount(mask) == 5) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            if (mask >>> low == 0b11111) straightHigh = low + 4;
+            else if (mask == 0b1000000001111) straightHigh = 3; // Five high, the Ace plays low
+        }
+        if (straightHigh >= 0) return (flush ? STRAIGHT_FLUSH : STRAIGHT) << 20 | straightHigh;
+
+        // Ranks by count, then by rank, highest first
+        int tiebreak = 0;
+        int[] shape = new int[5];
+        for (int count = 4; count >= 1; count--) {
+            for (int r = 12; r >= 0; r--) {
+                if (counts[r] == count) {
+                    tiebreak = tiebreak << 4 | r;
+                    shape[count]++;
+                }
+            }
+        }
+        int category;
+        if (flush) category = FLUSH;
+        else if (shape[4] == 1) category = FOUR_OF_A_KIND;
+        else if (shape[3] == 1) category = shape[2] == 1 ? FULL_HOUSE : THREE_OF_A_KIND;
+        else if (shape[2] == 2) category = TWO_PAIR;
+        else if (shape[2] == 1) category = PAIR;
+        else category = HIGH_CARD;
+        return category << 20 | tiebreak;
+    }
+}
@@ -0,0 +1,441 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Durable hand history. Tables append HandRecords to a bounded ring; a single
+// writer thread copies them into memory-mapped segment files and forces them to
+// disk once per sync interval (group commit), so the round path only pays for
+// the ring offer.
+//
+// Segments are hands-<first sequence>.journal: a header slot holding the
+// fingerprint of the DeckKey and the nonce the hands were dealt from, then
+// fixed-size records. The key itself is never written here: reading the cards
+// back takes the key file, and without it records come back with no cards.
+// Segments are still created readable by the owner only. On restart the writer
+// continues after the last valid record, in a new segment when the key or nonce
+// changed, which a server start always does. Segments of the older P3J1 format,
+// which stored the cards, are still read; the writer never appends to one.
+//
+// Each record names the paytable it settled under by id. The first record
+// under a paytable writes it to paytable-<id>.properties (Paytable.canonical),
+// synced before the record, so the journal always holds every paytable its
+// records name; equal paytables share an id across restarts.
+//
+//   java HandJournal <dir> [deck key file]    dump every record and the totals
+public class HandJournal implements Closeable {
+    private static final int MAGIC = 0x50334A32; // "P3J2"
+    private static final int OLD_MAGIC = 0x50334A31; // "P3J1", cards in the record
+    private static final int HEADER = HandRecord.SIZE;
+    private static final String PREFIX = "hands-";
+    private static final String SUFFIX = ".journal";
+    private static final String PAYTABLE_PREFIX = "paytable-";
+    private static final String PAYTABLE_SUFFIX = ".properties";
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Path dir;
+    private final long keyFingerprint;
+    private final long deckNonce;
+    private final int recordsPerSegment;
+    private final long syncNanos;
+    private final RingBuffer<HandRecord> ring;
+    private final ServerMetrics metrics;
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile Listener listener;
+
+    // Told on the writer thread about each record written and each group commit
+    public interface Listener {
+        void written(HandRecord record, long sequence);
+
+        // Every record up to lastSequence is on disk
+        void committed(long lastSequence);
+    }
+
+    // Writer thread only; paytable ids by canonical text, and by instance to skip building the text
+    private final Map<String, Integer> paytableIds = new HashMap<>();
+    private final Map<Paytable, Integer> paytableInstances = new IdentityHashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+    private boolean dirty;
+
+    public HandJournal(Path dir, long keyFingerprint, long deckNonce, long segmentBytes, long syncMillis,
+                       int capacity, ServerMetrics metrics) throws IOException {
+        this.dir = dir;
+        this.keyFingerprint = keyFingerprint;
+        this.deckNonce = deckNonce;
+        this.recordsPerSegment = (int) Math.max(1, Math.min(segmentBytes, Integer.MAX_VALUE) / HandRecord.SIZE - 1);
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, syncMillis));
+        this.ring = new RingBuffer<>(capacity);
+        this.metrics = metrics;
+        Files.createDirectories(dir);
+        for (Map.Entry<Integer, String> paytable : readPaytableFiles(dir).entrySet()) {
+            paytableIds.put(paytable.getValue(), paytable.getKey());
+        }
+        recover();
+
+        this.writer = new Thread(this::writeLoop, "hand-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // null when the journal is switched off with journal=none
+    public static HandJournal open(ServerConfig config, DeckPool deckPool, ServerMetrics metrics) throws IOException {
+        if (config.getJournal().equals("none")) return null;
+        return new HandJournal(Paths.get(config.getJournal()), deckPool.getKey().getFingerprint(),
+                deckPool.getNonce(), config.getJournalSegmentBytes(), config.getJournalSyncMs(),
+                config.getJournalBuffer(), metrics);
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    // Set before the first append
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Round path: queues the record and returns. Parks only while the ring is
+    // full, since history must not be dropped; callers hold no table lock here.
+    // false once the journal is closed or its writer failed: the hand is settled
+    // but not journaled, and is counted in poker_journal_dropped_total.
+    public boolean append(HandRecord record) {
+        while (running) {
+            if (ring.offer(record)) {
+                appended.incrementAndGet();
+                return true;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        recordDropped(record);
+        return false;
+    }
+
+    private void recordDropped(HandRecord record) {
+        dropped.incrementAndGet();
+        if (metrics != null) metrics.journalRecordDropped();
+    }
+
+    // Backpressure for AUTO_PLAY: waits while the ring is more than half full, so
+    // a batch slows to the writer's pace and the rest stays free for table rounds
+    public void awaitRoom() {
+        while (running && ring.size() > ring.capacity() / 2) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    public long getAppendedCount() { return appended.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public int getBacklog() { return ring.size(); }
+
+    // Writes and syncs whatever is queued, then stops the writer
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Queued after the writer's last drain
+        if (!writer.isAlive()) ring.drain(this::recordDropped, Integer.MAX_VALUE);
+    }
+
+    private void writeLoop() {
+        try {
+            while (running) {
+                LockSupport.parkNanos(syncNanos);
+                drainAndSync();
+            }
+            drainAndSync();
+            if (channel != null) channel.close();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Hand journal stopped: " + e.getMessage());
+            running = false;
+            ring.drain(this::recordDropped, Integer.MAX_VALUE);
+        }
+    }
+
+    private void drainAndSync() throws IOException {
+        int count;
+        do {
+            count = ring.drain(this::write, 4096);
+        } while (count == 4096);
+        if (dirty) {
+            long start = System.nanoTime();
+            segment.force();
+            dirty = false;
+            if (metrics != null) metrics.recordJournalSync(System.nanoTime() - start);
+        }
+        if (listener != null) listener.committed(nextSequence - 1);
+    }
+
+    private void write(HandRecord record) {
+        try {
+            if (segment == null || !segment.hasRemaining()) {
+                if (segment != null) segment.force();
+                openSegment(nextSequence, false);
+            }
+            long sequence = nextSequence++;
+            record.writeTo(segment, sequence, paytableId(record.paytable));
+            dirty = true;
+            if (listener != null) listener.written(record, sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int paytableId(Paytable paytable) throws IOException {
+        if (paytable == null) return 0;
+        Integer id = paytableInstances.get(paytable);
+        if (id != null) return id;
+        String text = paytable.canonical();
+        id = paytableIds.get(text);
+        if (id == null) {
+            id = paytableIds.size() + 1;
+            if (id > 0xFFFF) throw new IOException("More than 65535 paytables in " + dir);
+            Path temp = dir.resolve(PAYTABLE_PREFIX + id + ".tmp");
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                file.write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+                file.force(true);
+            }
+            Files.move(temp, paytableFile(dir, id), StandardCopyOption.ATOMIC_MOVE);
+            paytableIds.put(text, id);
+        }
+        paytableInstances.put(paytable, id);
+        return id;
+    }
+
+    private static Path paytableFile(Path dir, int id) {
+        return dir.resolve(PAYTABLE_PREFIX + id + PAYTABLE_SUFFIX);
+    }
+
+    // Canonical text of every paytable the journal holds, by id
+    private static Map<Integer, String> readPaytableFiles(Path dir) throws IOException {
+        Map<Integer, String> paytables = new HashMap<>();
+        if (!Files.isDirectory(dir)) return paytables;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PAYTABLE_PREFIX + "*" + PAYTABLE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int id = Integer.parseInt(name.substring(PAYTABLE_PREFIX.length(),
+                        name.length() - PAYTABLE_SUFFIX.length()));
+                paytables.put(id, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        return paytables;
+    }
+
+    // Continues the newest segment after its last valid record. Deal numbers mean nothing
+    // without their key and nonce, so a segment of another key, nonce or format is left as it is.
+    private void recover() throws IOException {
+        List<Path> segments = segments(dir);
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        long first = firstSequence(last);
+        openSegment(first, true);
+        nextSequence = first;
+        while (segment.hasRemaining()) {
+            int position = segment.position();
+            long sequence = HandRecord.readSequence(segment);
+            if (sequence == 0) {
+                segment.position(position);
+                break;
+            }
+            nextSequence = sequence + 1;
+        }
+        if (segment.getInt(0) != MAGIC || segment.getLong(16) != keyFingerprint
+                || segment.getLong(24) != deckNonce) {
+            // Replaces the header too when the segment holds no records
+            openSegment(nextSequence, false);
+        }
+    }
+
+    private void openSegment(long firstSequence, boolean existing) throws IOException {
+        if (channel != null) channel.close();
+        Path path = dir.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        channel = FileChannel.open(path, Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE), ownerOnly(path));
+        long size = HEADER + (long) recordsPerSegment * HandRecord.SIZE;
+        // A segment cut short before its header was written starts over
+        existing = existing && channel.size() > HEADER;
+        if (existing) {
+            size = channel.size();
+        }
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (!existing) {
+            segment.putInt(MAGIC).putInt(HandRecord.SIZE).putLong(firstSequence).putLong(keyFingerprint)
+                    .putLong(deckNonce);
+        } else if (segment.getInt(0) != MAGIC && segment.getInt(0) != OLD_MAGIC) {
+            throw new IOException("Not a hand journal segment: " + path);
+        }
+        segment.position(HEADER);
+    }
+
+    private static FileAttribute<?>[] ownerOnly(Path path) {
+        if (!path.getFileSystem().supportedFileAttributeViews().contains("posix")) return new FileAttribute<?>[0];
+        return new FileAttribute<?>[] {
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))};
+    }
+
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return segments;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) segments.add(file);
+        }
+        // Zero-padded sequence numbers sort by name
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Every valid record in sequence order, for audits. Safe to run against a live journal. Cards
+    // are dealt again for segments of this key; key may be null when only the bets and results matter.
+    public static Reader read(Path dir, DeckKey key) throws IOException {
+        return new Reader(dir, segments(dir), key);
+    }
+
+    // From the segment holding fromSequence on, without cards; records before it in that segment are
+    // still returned
+    public static Reader read(Path dir, long fromSequence) throws IOException {
+        List<Path> segments = segments(dir);
+        while (segments.size() > 1 && firstSequence(segments.get(1)) <= fromSequence) {
+            segments.remove(0);
+        }
+        return new Reader(dir, segments, null);
+    }
+
+    public static class Reader implements Iterator<HandRecord>, Closeable {
+        private final Iterator<Path> segments;
+        private final DeckKey key;
+        private final Path dir;
+        private final Map<Integer, Paytable> paytables = new HashMap<>();
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private DeckKey segmentKey; // null when the segment was dealt under another key
+        private long deckNonce;
+        private boolean v1;
+        private HandRecord next;
+
+        Reader(Path dir, List<Path> segments, DeckKey key) throws IOException {
+            this.segments = segments.iterator();
+            this.key = key;
+            this.dir = dir;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public HandRecord next() {
+            if (next == null) throw new NoSuchElementException();
+            HandRecord record = next;
+            try {
+                advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return record;
+        }
+
+        private void advance() throws IOException {
+            next = null;
+            while (true) {
+                if (buffer != null && buffer.remaining() >= HandRecord.SIZE) {
+                    next = v1 ? HandRecord.readV1From(buffer) : HandRecord.readFrom(buffer, segmentKey, deckNonce,
+                            this::paytable);
+                    if (next != null) return;
+                    // Blank or torn tail of this segment
+                    buffer.position(buffer.limit());
+                }
+                if (!segments.hasNext()) return;
+                if (channel != null) channel.close();
+                channel = FileChannel.open(segments.next(), StandardOpenOption.READ);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC && buffer.getInt(0) != OLD_MAGIC) {
+                    buffer = null;
+                    continue;
+                }
+                v1 = buffer.getInt(0) == OLD_MAGIC;
+                segmentKey = key != null && key.getFingerprint() == buffer.getLong(16) ? key : null;
+                deckNonce = buffer.getLong(24);
+                buffer.position(HEADER);
+            }
+        }
+
+        // Read on first use, so records of a live journal find paytables added since the reader opened
+        private Paytable paytable(int id) {
+            if (id == 0) return null;
+            return paytables.computeIfAbsent(id, missing -> {
+                try {
+                    byte[] text = Files.readAllBytes(paytableFile(dir, id));
+                    return Paytable.parse(new String(text, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Paytable " + id + " of " + dir + " unreadable", e);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) channel.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "journal");
+        DeckKey key = args.length > 1 ? DeckKey.load(Paths.get(args[1]), false) : null;
+        long hands = 0, wagered = 0, net = 0;
+        try (Reader reader = read(dir, key)) {
+            while (reader.hasNext()) {
+                HandRecord record = reader.next();
+                System.out.println(record);
+                hands++;
+                wagered += record.ante + record.pairPlus + record.sixCard + record.play;
+                net += record.totalWinnings;
+            }
+        }
+        System.out.printf("%,d hands, $%,d wagered, players net $%,d%n", hands, wagered, net);
+    }
+}
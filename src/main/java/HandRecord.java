@@ -0,0 +1,232 @@
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+// One settled seat, as stored in the HandJournal. Records are SIZE bytes:
+//
+//    0 long  sequence          32 int  ante
+//    8 long  time (epoch ms)   36 int  pair plus
+//   16 int   player id         40 int  play
+//   20 short table             44 int  total winnings
+//   22 byte  seat              48 int  pair plus winnings
+//   23 byte  outcome           52 byte flags
+//   24 byte[6] deal number     53 int  play advantage (cents)
+//   30 short paytable id       57 byte[3] 6 Card Bonus, unsigned
+//                              60 int  CRC32 of bytes 0-59
+//
+// Cards are not stored: the deal number and the DeckKey and nonce of the segment
+// give the order again (DeckPool), and the seat its place in it, so the cards
+// are dealt again on reading; without the key they are null. They are codes
+// (suit * 13 + value - 1).
+// Folded hands keep the dealer cards, which were dealt but never shown; the 6
+// Card Bonus is settled from them. The paytable id, unsigned, names the paytable
+// the hand settled under among those the journal keeps (HandJournal), 0 when
+// none was given. The play advantage is StrategyTable's
+// expected gain of PLAY over FOLD for the bets, 0 when no table was loaded;
+// FLAG_STRATEGY_PLAY marks hands the table would play, so a decision can be
+// checked against it.
+public class HandRecord {
+    public static final int SIZE = 64;
+
+    // Outcomes
+    public static final int FOLD = 0;
+    public static final int WIN = 1;
+    public static final int LOSE = 2;
+    public static final int PUSH = 3;
+    public static final int DEALER_NOT_QUALIFIED = 4;
+
+    // Flags
+    public static final int FLAG_AUTO_PLAY = 1; // played by the server in an AUTO_PLAY batch
+    public static final int FLAG_STRATEGY_PLAY = 2; // playing has the higher expected value
+
+    // Largest 6 Card Bonus bet the record holds; larger bets are refused
+    public static final int MAX_SIX_CARD_BET = 0xFFFFFF;
+
+    // Deal number of records read from P3J1 segments, which stored the cards instead
+    public static final long NO_DEAL = -1;
+    // Deal numbers are stored in 48 bits; DeckPool counts from 0 on every start
+    public static final long MAX_DEAL = (1L << 48) - 1;
+
+    private static final int CRC_OFFSET = 60;
+
+    public final long sequence;
+    public final long timeMillis;
+    public final int playerId;
+    public final int table;
+    public final int seat;
+    public final int outcome;
+    public final long deal;
+    public final int[] playerCards; // null when read without the deck key
+    public final int[] dealerCards;
+    public final int ante;
+    public final int pairPlus;
+    public final int sixCard;
+    public final int play;
+    public final int totalWinnings;
+    public final int pairPlusWinnings;
+    public final int flags;
+    public final int playAdvantageCents;
+    public final Paytable paytable; // null when not journaled (P3J1) or not given
+
+    public HandRecord(long sequence, long timeMillis, int playerId, int table, int seat, int outcome, long deal,
+                      int[] playerCards, int[] dealerCards, int ante, int pairPlus, int sixCard, int play,
+                      int totalWinnings, int pairPlusWinnings, int flags, int playAdvantageCents, Paytable paytable) {
+        this.sequence = sequence;
+        this.timeMillis = timeMillis;
+        this.playerId = playerId;
+        this.table = table;
+        this.seat = seat;
+        this.outcome = outcome;
+        this.deal = deal;
+        this.playerCards = playerCards;
+        this.dealerCards = dealerCards;
+        this.ante = ante;
+        this.pairPlus = pairPlus;
+        this.sixCard = sixCard;
+        this.play = play;
+        this.totalWinnings = totalWinnings;
+        this.pairPlusWinnings = pairPlusWinnings;
+        this.flags = flags;
+        this.playAdvantageCents = playAdvantageCents;
+        this.paytable = paytable;
+    }
+
+    // Outcome of a played hand, from the same keys PokerGame settles with
+    public static int outcome(boolean dealerQualifies, int comparison) {
+        if (!dealerQualifies) return DEALER_NOT_QUALIFIED;
+        if (comparison > 0) return WIN;
+        if (comparison < 0) return LOSE;
+        return PUSH;
+    }
+
+    public int getPlayerRank() {
+        return ThreeCardLogic.evalHand(playerCards[0], playerCards[1], playerCards[2]);
+    }
+
+    public int getDealerRank() {
+        return ThreeCardLogic.evalHand(dealerCards[0], dealerCards[1], dealerCards[2]);
+    }
+
+    // Writes the record under the sequence and paytable id the journal assigned, at the buffer's position,
+    // advancing by SIZE
+    void writeTo(ByteBuffer buffer, long sequence, int paytableId) {
+        int start = buffer.position();
+        buffer.putLong(sequence);
+        buffer.putLong(timeMillis);
+        buffer.putInt(playerId);
+        buffer.putShort((short) table);
+        buffer.put((byte) seat);
+        buffer.put((byte) outcome);
+        buffer.putShort((short) (deal >>> 32)).putInt((int) deal);
+        buffer.putShort((short) paytableId);
+        buffer.putInt(ante);
+        buffer.putInt(pairPlus);
+        buffer.putInt(play);
+        buffer.putInt(totalWinnings);
+        buffer.putInt(pairPlusWinnings);
+        buffer.put((byte) flags);
+        buffer.putInt(playAdvantageCents);
+        buffer.put((byte) (sixCard >>> 16)).put((byte) (sixCard >>> 8)).put((byte) sixCard);
+        buffer.putInt(crc(buffer, start));
+    }
+
+    // Sequence of the record at the buffer's position, or 0 for a blank or torn slot; advances by SIZE
+    static long readSequence(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.position(start + SIZE);
+        if (buffer.getLong(start) == 0 || buffer.getInt(start + CRC_OFFSET) != crc(buffer, start)) {
+            return 0;
+        }
+        return buffer.getLong(start);
+    }
+
+    // Record at the buffer's position, its cards dealt again from the deck key and nonce, or null for a
+    // blank or torn slot; advances by SIZE either way. A null key leaves the cards null; paytables maps
+    // the journal's paytable ids.
+    static HandRecord readFrom(ByteBuffer buffer, DeckKey deckKey, long deckNonce, IntFunction<Paytable> paytables) {
+        int start = buffer.position();
+        if (readSequence(buffer) == 0) return null;
+        int sixCard = (buffer.get(start + 57) & 0xFF) << 16 | (buffer.get(start + 58) & 0xFF) << 8
+                | buffer.get(start + 59) & 0xFF;
+        int seat = buffer.get(start + 22);
+        long deal = (buffer.getShort(start + 24) & 0xFFFFL) << 32 | buffer.getInt(start + 26) & 0xFFFFFFFFL;
+        int[] player = null;
+        int[] dealer = null;
+        if (deckKey != null) {
+            byte[] order = new byte[52];
+            DeckPool.order(deckKey, deckNonce, deal, order, DeckPool.cardsFor(seat));
+            player = new int[3];
+            dealer = new int[3];
+            DeckPool.deal(order, seat, player, dealer);
+        }
+        return new HandRecord(buffer.getLong(start), buffer.getLong(start + 8), buffer.getInt(start + 16),
+                buffer.getShort(start + 20), seat, buffer.get(start + 23), deal, player, dealer,
+                buffer.getInt(start + 32), buffer.getInt(start + 36), sixCard, buffer.getInt(start + 40),
+                buffer.getInt(start + 44), buffer.getInt(start + 48), buffer.get(start + 52) & 0xFF,
+                buffer.getInt(start + 53), paytables.apply(buffer.getShort(start + 30) & 0xFFFF));
+    }
+
+    // Record of a P3J1 segment, or null for a blank or torn slot; advances by SIZE. That layout
+    // held the cards and hand ranks at 24-31 in place of the deal number, the rest as above.
+    static HandRecord readV1From(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (readSequence(buffer) == 0) return null;
+        int sixCard = (buffer.get(start + 57) & 0xFF) << 16 | (buffer.get(start + 58) & 0xFF) << 8
+                | buffer.get(start + 59) & 0xFF;
+        int[] player = new int[3];
+        int[] dealer = new int[3];
+        for (int i = 0; i < 3; i++) {
+            player[i] = buffer.get(start + 24 + i);
+            dealer[i] = buffer.get(start + 27 + i);
+        }
+        return new HandRecord(buffer.getLong(start), buffer.getLong(start + 8), buffer.getInt(start + 16),
+                buffer.getShort(start + 20), buffer.get(start + 22), buffer.get(start + 23), NO_DEAL, player, dealer,
+                buffer.getInt(start + 32), buffer.getInt(start + 36), sixCard, buffer.getInt(start + 40),
+                buffer.getInt(start + 44), buffer.getInt(start + 48), buffer.get(start + 52) & 0xFF,
+                buffer.getInt(start + 53), null);
+    }
+
+    private static int crc(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(start + CRC_OFFSET).position(start);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public String toString() {
+        String hands = playerCards == null ? "cards need the deck key"
+                : String.format("player %s %s | dealer %s %s", cards(playerCards),
+                        ClientHandler.getHandTypeName(getPlayerRank()), cards(dealerCards),
+                        ClientHandler.getHandTypeName(getDealerRank()));
+        return String.format("#%d %tF %<tT player %d table %d seat %d deal %s %s | %s | ante %d pp %d play %d | net %d",
+                sequence, timeMillis, playerId, table, seat + 1, deal == NO_DEAL ? "-" : deal, outcomeName(outcome),
+                hands, ante, pairPlus, play, totalWinnings)
+                + (sixCard != 0 && playerCards != null ? String.format(" | 6 card %d %s", sixCard, FiveCardLogic.name(
+                        FiveCardLogic.category(FiveCardLogic.bestOfSix(playerCards, dealerCards)))) : "")
+                + (sixCard != 0 && playerCards == null ? " | 6 card " + sixCard : "")
+                + (playAdvantageCents != 0 ? String.format(" | play advantage %.2f", playAdvantageCents / 100.0) : "")
+                + (paytable != null ? " | paytable " + paytable.getName() : "");
+    }
+
+    static String outcomeName(int outcome) {
+        switch (outcome) {
+            case FOLD: return "FOLD";
+            case WIN: return "WIN";
+            case LOSE: return "LOSE";
+            case PUSH: return "PUSH";
+            case DEALER_NOT_QUALIFIED: return "NO_QUALIFY";
+            default: return "?" + outcome;
+        }
+    }
+
+    private static String cards(int[] codes) {
+        StringBuilder text = new StringBuilder();
+        for (int code : codes) {
+            if (text.length() > 0) text.append(' ');
+            text.append("A23456789TJQK".charAt(code % 13)).append("HDCS".charAt(code / 13));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Audits the hand journal by playing it again: each hand's cards come back from
+// its deal number, the deck key file and the segment's nonce, PokerGame settles
+// them with the recorded bets and PLAY or FOLD decision, and the result must
+// match what was paid. A mismatch means the journal, the dealing or the settlement
+// changed since the hand was played. Records of older P3J1 segments carry their
+// cards and are settled from those.
+//
+// Each hand settles again under the paytable its record names, as the journal
+// kept it. P3J1 records name none: they are replayed only when a paytable list
+// is given, taken round-robin by table id as PaytableRegistry assigned them,
+// and their mismatches are marked as under an assumed paytable.
+//
+// Hands that cannot be replayed, dealt under another key or P3J1 hands with no
+// list given, are counted apart and fail the audit too.
+//
+//   java HandReplay <dir> <deck key file> [P3J1 paytable,...]    print every mismatch and the
+//                                                                totals, exit 1 on any
+public class HandReplay {
+
+    // Settles the hand again; null when it matches the record, otherwise what differs
+    public static String check(HandRecord record, Paytable paytable) {
+        int[] player = record.playerCards;
+        int[] dealer = record.dealerCards;
+        PokerGame game = new PokerGame(null);
+        game.setPaytable(paytable);
+        game.placeBets(record.ante, record.pairPlus, record.sixCard);
+        game.dealHands(player, dealer);
+
+        PokerInfo result;
+        int outcome;
+        int pairPlusWinnings = 0;
+        if (record.outcome == HandRecord.FOLD) {
+            result = game.fold();
+            outcome = HandRecord.FOLD;
+        } else {
+            game.makePlayWager();
+            int dealerKey = ThreeCardLogic.handKey(dealer[0], dealer[1], dealer[2]);
+            int playerKey = ThreeCardLogic.handKey(player[0], player[1], player[2]);
+            boolean dealerQualifies = ThreeCardLogic.qualifies(dealerKey);
+            result = game.calculateResult(dealerQualifies, dealerKey);
+            outcome = HandRecord.outcome(dealerQualifies, Integer.compare(playerKey, dealerKey));
+            pairPlusWinnings = paytable.pairPlusWinnings(ThreeCardLogic.evalHand(player[0], player[1], player[2]),
+                    record.pairPlus);
+        }
+
+        StringBuilder mismatch = new StringBuilder();
+        if (outcome != record.outcome) {
+            mismatch.append(String.format("outcome %s, replayed %s; ", HandRecord.outcomeName(record.outcome),
+                    HandRecord.outcomeName(outcome)));
+        }
+        if (game.getPlayBet() != record.play) {
+            mismatch.append(String.format("play %d, replayed %d; ", record.play, game.getPlayBet()));
+        }
+        if (result.getTotalWinnings() != record.totalWinnings) {
+            mismatch.append(String.format("net %d, replayed %d; ", record.totalWinnings, result.getTotalWinnings()));
+        }
+        if (pairPlusWinnings != record.pairPlusWinnings) {
+            mismatch.append(String.format("pair plus winnings %d, replayed %d; ", record.pairPlusWinnings,
+                    pairPlusWinnings));
+        }
+        return mismatch.length() == 0 ? null : mismatch.substring(0, mismatch.length() - 2);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "journal");
+        DeckKey key = DeckKey.load(Paths.get(args.length > 1 ? args[1] : "deck.key"), false);
+        List<Paytable> legacy = new ArrayList<>();
+        for (String name : (args.length > 2 ? args[2] : "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+            legacy.add(name.equals("standard") ? Paytable.STANDARD : Paytable.load(Paths.get(name)));
+        }
+
+        long hands = 0, mismatches = 0, undealt = 0, unpaid = 0;
+        try (HandJournal.Reader reader = HandJournal.read(dir, key)) {
+            while (reader.hasNext()) {
+                HandRecord record = reader.next();
+                if (record.playerCards == null) {
+                    undealt++;
+                    continue;
+                }
+                Paytable paytable = record.paytable;
+                if (paytable == null) {
+                    if (legacy.isEmpty()) {
+                        unpaid++;
+                        continue;
+                    }
+                    paytable = legacy.get(Math.floorMod(record.table - 1, legacy.size()));
+                }
+                String mismatch = check(record, paytable);
+                hands++;
+                if (mismatch != null) {
+                    mismatches++;
+                    System.out.println(record);
+                    System.out.println("    " + mismatch + (record.paytable == null ? " (paytable assumed)" : ""));
+                }
+            }
+        }
+        System.out.printf("%,d hands replayed, %,d mismatched%n", hands, mismatches);
+        if (undealt > 0) System.out.printf("%,d hands not replayed: dealt under another deck key%n", undealt);
+        if (unpaid > 0) System.out.printf("%,d P3J1 hands not replayed: give their paytable list%n", unpaid);
+        if (mismatches > 0 || undealt > 0 || unpaid > 0) System.exit(1);
+    }
+}
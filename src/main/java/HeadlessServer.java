@@ -0,0 +1,39 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// Entry point for hosts without a display:
+//   java -cp <classpath> HeadlessServer --port 5555 --engine nio --log file:server.log
+public class HeadlessServer {
+    public static void main(String[] args) {
+        ServerConfig config;
+        try {
+            config = ServerConfig.fromArgs(Arrays.asList(args));
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.print(ServerConfig.usage());
+            System.exit(2);
+            return;
+        }
+
+        PokerServer server;
+        try {
+            server = new PokerServer(config);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        try {
+            for (LogSink sink : LogSink.fromConfig(config)) {
+                server.getEventLog().addSink(sink);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot open log: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "shutdown"));
+        server.start(config.getPort());
+    }
+}
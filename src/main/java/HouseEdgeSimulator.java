@@ -0,0 +1,359 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Paytable audit tool. Settles hands with the same Paytable rules as
+// PokerGame.calculateResult, per unit of ante.
+//
+//   java HouseEdgeSimulator [paytable file]                          exact, every player/dealer pair
+//   java HouseEdgeSimulator montecarlo <rounds> [seed] [paytable file]
+public class HouseEdgeSimulator {
+
+    // Hands left for the dealer once the player holds three cards, C(49,3)
+    public static final int DEALER_HANDS = 18424;
+
+    // Player and dealer cards together, C(52,6)
+    public static final int SIX_CARD_HANDS = 20358520;
+
+    // Per-hand data indexed like ThreeCardLogic.handIndex
+    private static final int[][] CARDS = new int[ThreeCardLogic.HAND_COUNT][];
+    private static final long[] MASKS = new long[ThreeCardLogic.HAND_COUNT];
+    private static final int[] KEYS = new int[ThreeCardLogic.HAND_COUNT];
+    private static final boolean[] QUALIFIES = new boolean[ThreeCardLogic.HAND_COUNT];
+
+    static {
+        int[] packed = new int[3 * ThreeCardLogic.HAND_COUNT];
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    int index = ThreeCardLogic.handIndex(a, b, c);
+                    CARDS[index] = new int[] {a, b, c};
+                    MASKS[index] = 1L << a | 1L << b | 1L << c;
+                    packed[3 * index] = a;
+                    packed[3 * index + 1] = b;
+                    packed[3 * index + 2] = c;
+                }
+            }
+        }
+        ThreeCardLogic.evalHands(packed, null, KEYS);
+        for (int index = 0; index < ThreeCardLogic.HAND_COUNT; index++) {
+            QUALIFIES[index] = ThreeCardLogic.qualifies(KEYS[index]);
+        }
+    }
+
+    // Summary of a simulation, all returns per unit of ante
+    public static class Report {
+        public final String paytable;
+        public final long rounds;
+        public final double optimalHouseEdge; // NaN for Monte Carlo, which only plays Q-6-4
+        public final double optimalPlayRate;
+        public final double q64HouseEdge;
+        public final double q64PlayRate;
+        public final double pairPlusReturn;
+        public final double sixCardReturn;
+        public final double standardError; // Monte Carlo only, 0 when exact
+
+        Report(String paytable, long rounds, double optimalHouseEdge, double optimalPlayRate, double q64HouseEdge,
+               double q64PlayRate, double pairPlusReturn, double sixCardReturn, double standardError) {
+            this.paytable = paytable;
+            this.rounds = rounds;
+            this.optimalHouseEdge = optimalHouseEdge;
+            this.optimalPlayRate = optimalPlayRate;
+            this.q64HouseEdge = q64HouseEdge;
+            this.q64PlayRate = q64PlayRate;
+            this.pairPlusReturn = pairPlusReturn;
+            this.sixCardReturn = sixCardReturn;
+            this.standardError = standardError;
+        }
+
+        // House edge over the average total amount wagered (ante plus play when played)
+        public double optimalElementOfRisk() { return optimalHouseEdge / (1 + optimalPlayRate); }
+        public double q64ElementOfRisk() { return q64HouseEdge / (1 + q64PlayRate); }
+
+        // Paid back per unit wagered on ante and play under the optimal strategy
+        public double optimalReturn() { return 1 - optimalElementOfRisk(); }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Paytable:               %s%n", paytable));
+            out.append(String.format("Rounds:                 %,d%n", rounds));
+            if (!Double.isNaN(optimalHouseEdge)) {
+                out.append(String.format("Optimal strategy:       house edge %.5f%%, element of risk %.5f%%, play rate %.4f%%%n",
+                        optimalHouseEdge * 100, optimalElementOfRisk() * 100, optimalPlayRate * 100));
+            }
+            out.append(String.format("Q-6-4 strategy:         house edge %.5f%%, element of risk %.5f%%, play rate %.4f%%%n",
+                    q64HouseEdge * 100, q64ElementOfRisk() * 100, q64PlayRate * 100));
+            out.append(String.format("Pair Plus return:       %.5f%% (house edge %.5f%%)%n",
+                    pairPlusReturn * 100, (1 - pairPlusReturn) * 100));
+            out.append(String.format("6 Card Bonus return:    %.5f%% (house edge %.5f%%)%n",
+                    sixCardReturn * 100, (1 - sixCardReturn) * 100));
+            if (standardError > 0) {
+                out.append(String.format("Standard error (Q-6-4): %.5f%%%n", standardError * 100));
+            }
+            return out.toString();
+        }
+    }
+
+    // How playing each player hand ends against every dealer hand, laid out as StrategyTable stores it
+    public static int[] outcomeCounts() {
+        int[] counts = new int[StrategyTable.OUTCOMES * ThreeCardLogic.HAND_COUNT];
+        ForkJoinPool.commonPool().invoke(new OutcomeTask(counts, 0, ThreeCardLogic.HAND_COUNT));
+        return counts;
+    }
+
+    // How often each FiveCardLogic category is the best five of six cards, over all C(52,6) deals;
+    // counted on first use
+    public static long[] sixCardCounts() {
+        return SixCardCounts.COUNTS.clone();
+    }
+
+    private static final class SixCardCounts {
+        static final long[] COUNTS = ForkJoinPool.commonPool().invoke(new SixCardTask(5, 52));
+    }
+
+    // Exhaustive enumeration of all 22,100 x 18,424 player/dealer pairs
+    public static Report exhaustive(Paytable paytable) {
+        return exact(paytable, StrategyTable.compute());
+    }
+
+    // Exact returns from counted outcomes: one pass over the player hands, so cheap
+    // enough to check every paytable as it loads
+    public static Report exact(Paytable paytable, StrategyTable outcomes) {
+        double optimal = 0, q64 = 0, pairPlus = 0;
+        int optimalPlays = 0, q64Plays = 0;
+        for (int i = 0; i < ThreeCardLogic.HAND_COUNT; i++) {
+            int[] cards = CARDS[i];
+            double play = outcomes.playExpectation(paytable, cards[0], cards[1], cards[2]);
+            if (play > StrategyTable.FOLD) {
+                optimal += play;
+                optimalPlays++;
+            } else {
+                optimal += StrategyTable.FOLD;
+            }
+            if (ThreeCardLogic.playsQ64(cards[0], cards[1], cards[2])) {
+                q64 += play;
+                q64Plays++;
+            } else {
+                q64 += StrategyTable.FOLD;
+            }
+            pairPlus += paytable.pairPlusWinnings(ThreeCardLogic.evalHand(cards[0], cards[1], cards[2]), 1);
+        }
+        long[] sixCardCounts = SixCardCounts.COUNTS;
+        double sixCard = 0;
+        for (int category = 0; category < sixCardCounts.length; category++) {
+            sixCard += (double) sixCardCounts[category] * paytable.sixCardWinnings(category, 1);
+        }
+
+        double hands = ThreeCardLogic.HAND_COUNT;
+        return new Report(paytable.getName(), (long) ThreeCardLogic.HAND_COUNT * DEALER_HANDS, -optimal / hands,
+                optimalPlays / hands, -q64 / hands, q64Plays / hands, pairPlus / hands, sixCard / SIX_CARD_HANDS, 0);
+    }
+
+    // Seeded Monte Carlo over dealt rounds using Deck, playing the Q-6-4 rule
+    public static Report monteCarlo(long rounds, long seed, Paytable paytable) {
+        int chunks = Math.max(1, (int) Math.min(rounds / 10_000, 4096));
+        long[] seeds = new long[chunks];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < chunks; i++) {
+            seeds[i] = root.nextLong();
+        }
+
+        Tally tally = ForkJoinPool.commonPool().invoke(new MonteCarloTask(seeds, rounds, paytable, 0, chunks));
+        double n = rounds;
+        double mean = tally.net / n;
+        double variance = Math.max(0, tally.netSquared / n - mean * mean);
+        return new Report(paytable.getName(), rounds, Double.NaN, Double.NaN, -mean, tally.plays / n,
+                tally.pairPlus / n, tally.sixCard / n, Math.sqrt(variance / n));
+    }
+
+    // Outcome counts of playing one hand against every possible dealer hand
+    static void countOutcomes(int playerIndex, int[] counts) {
+        long playerMask = MASKS[playerIndex];
+        int playerKey = KEYS[playerIndex];
+        int wins = 0, losses = 0, ties = 0, unqualified = 0;
+
+        for (int d = 0; d < ThreeCardLogic.HAND_COUNT; d++) {
+            if ((MASKS[d] & playerMask) != 0) continue;
+            if (!QUALIFIES[d]) {
+                unqualified++;
+            } else if (playerKey > KEYS[d]) {
+                wins++;
+            } else if (playerKey < KEYS[d]) {
+                losses++;
+            } else {
+                ties++;
+            }
+        }
+
+        int base = StrategyTable.OUTCOMES * playerIndex;
+        counts[base + StrategyTable.WINS] = wins;
+        counts[base + StrategyTable.LOSSES] = losses;
+        counts[base + StrategyTable.TIES] = ties;
+        counts[base + StrategyTable.NOT_QUALIFIED] = unqualified;
+    }
+
+    private static class OutcomeTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 64;
+        private final int[] counts;
+        private final int from;
+        private final int to;
+
+        OutcomeTask(int[] counts, int from, int to) {
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    countOutcomes(i, counts);
+                }
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            OutcomeTask left = new OutcomeTask(counts, from, mid);
+            left.fork();
+            new OutcomeTask(counts, mid, to).compute();
+            left.join();
+            return null;
+        }
+    }
+
+    // Deals of six cards whose highest card is in [from, to), the rest below it
+    private static class SixCardTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        SixCardTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from == 1) {
+                long[] counts = new long[FiveCardLogic.CATEGORY_COUNT];
+                int f = from;
+                for (int e = 4; e < f; e++) {
+                    for (int d = 3; d < e; d++) {
+                        for (int c = 2; c < d; c++) {
+                            for (int b = 1; b < c; b++) {
+                                for (int a = 0; a < b; a++) {
+                                    counts[FiveCardLogic.category(FiveCardLogic.bestOfSix(a, b, c, d, e, f))]++;
+                                }
+                            }
+                        }
+                    }
+                }
+                return counts;
+            }
+            int mid = (from + to) >>> 1;
+            SixCardTask left = new SixCardTask(from, mid);
+            left.fork();
+            long[] counts = new SixCardTask(mid, to).compute();
+            long[] leftCounts = left.join();
+            for (int category = 0; category < counts.length; category++) {
+                counts[category] += leftCounts[category];
+            }
+            return counts;
+        }
+    }
+
+    private static class Tally {
+        double net;
+        double netSquared;
+        double pairPlus;
+        double sixCard;
+        long plays;
+
+        Tally add(Tally other) {
+            net += other.net;
+            netSquared += other.netSquared;
+            pairPlus += other.pairPlus;
+            sixCard += other.sixCard;
+            plays += other.plays;
+            return this;
+        }
+    }
+
+    private static class MonteCarloTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final long[] seeds;
+        private final long rounds;
+        private final Paytable paytable;
+        private final int from;
+        private final int to;
+
+        MonteCarloTask(long[] seeds, long rounds, Paytable paytable, int from, int to) {
+            this.seeds = seeds;
+            this.rounds = rounds;
+            this.paytable = paytable;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from == 1) {
+                // Spread the remainder over the first chunks so the total is exact
+                long count = rounds / seeds.length + (from < rounds % seeds.length ? 1 : 0);
+                return simulate(seeds[from], count, paytable);
+            }
+            int mid = (from + to) >>> 1;
+            MonteCarloTask left = new MonteCarloTask(seeds, rounds, paytable, from, mid);
+            left.fork();
+            Tally right = new MonteCarloTask(seeds, rounds, paytable, mid, to).compute();
+            return left.join().add(right);
+        }
+
+        private static Tally simulate(long seed, long count, Paytable paytable) {
+            Tally tally = new Tally();
+            Deck deck = new Deck(CardRandom.splittable(seed));
+            for (long r = 0; r < count; r++) {
+                deck.shuffle();
+                // Deal alternately, as PokerGame.dealHands does
+                int p0 = deck.drawCode(), d0 = deck.drawCode();
+                int p1 = deck.drawCode(), d1 = deck.drawCode();
+                int p2 = deck.drawCode(), d2 = deck.drawCode();
+
+                int net;
+                int rank = ThreeCardLogic.evalHand(p0, p1, p2);
+                if (ThreeCardLogic.playsQ64(p0, p1, p2)) {
+                    boolean qualifies = ThreeCardLogic.dealerQualifies(d0, d1, d2);
+                    int comparison = qualifies ? ThreeCardLogic.compareHands(d0, d1, d2, p0, p1, p2) : 0;
+                    net = paytable.mainGameReturn(qualifies, comparison, 1, 1) + paytable.anteBonus(rank, 1) - 2;
+                    tally.plays++;
+                } else {
+                    net = -1;
+                }
+                tally.net += net;
+                tally.netSquared += (double) net * net;
+                tally.pairPlus += paytable.pairPlusWinnings(rank, 1);
+                tally.sixCard += paytable.sixCardWinnings(
+                        FiveCardLogic.category(FiveCardLogic.bestOfSix(p0, p1, p2, d0, d1, d2)), 1);
+            }
+            return tally;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        Report report;
+        if (args.length > 0 && args[0].equalsIgnoreCase("montecarlo")) {
+            long rounds = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+            report = monteCarlo(rounds, seed, args.length > 3 ? Paytable.load(Paths.get(args[3])) : Paytable.STANDARD);
+        } else {
+            report = exhaustive(args.length > 0 ? Paytable.load(Paths.get(args[0])) : Paytable.STANDARD);
+        }
+        System.out.print(report);
+        System.out.printf("Elapsed:                %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
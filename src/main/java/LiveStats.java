@@ -0,0 +1,266 @@
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Live return-to-player, fold rate, Pair Plus hit rate and player hand-rank
+// frequencies, next to what theory says they should be. Every settled hand, at a
+// table or in an AUTO_PLAY batch, is counted in striped LongAdders, so recording
+// never contends. sample() runs at a fixed rate, keeping the totals in a ring;
+// a window is the newest sample minus the one taken that long before.
+//
+// Drift: given the player's cards and decision only the dealer hand is random,
+// so with the strategy table each hand's expected result is exact. The sum of
+// (result - expected) has mean zero and its spread is estimated from the same
+// residuals; |z| above stats.alertZ logs an alert, whatever strategy players use.
+public class LiveStats {
+    private static final String[] RANK_NAMES = {"high card", "pair", "flush", "straight", "trips", "straight flush"};
+
+    // Dealt frequency of each ThreeCardLogic rank, and the Pair Plus and Q-6-4 fold rates that follow
+    public static final double[] RANK_PROBABILITY = new double[RANK_NAMES.length];
+    public static final double PAIR_PLUS_HIT_PROBABILITY;
+    public static final double Q64_FOLD_PROBABILITY;
+
+    static {
+        int q64Folds = 0;
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    RANK_PROBABILITY[ThreeCardLogic.evalHand(a, b, c)]++;
+                    if (!ThreeCardLogic.playsQ64(a, b, c)) q64Folds++;
+                }
+            }
+        }
+        for (int rank = 0; rank < RANK_PROBABILITY.length; rank++) {
+            RANK_PROBABILITY[rank] /= ThreeCardLogic.HAND_COUNT;
+        }
+        PAIR_PLUS_HIT_PROBABILITY = 1 - RANK_PROBABILITY[ThreeCardLogic.HIGH_CARD];
+        Q64_FOLD_PROBABILITY = q64Folds / (double) ThreeCardLogic.HAND_COUNT;
+    }
+
+    private final StrategyTable strategy; // null: no expected results, no drift alerts
+    private final Consumer<String> alertLog;
+    private final long sampleMs;
+    private final long windowMs;
+    private final double alertZ;
+    private final long alertMinHands;
+
+    private final LongAdder hands = new LongAdder();
+    private final LongAdder folds = new LongAdder();
+    private final LongAdder optimalFolds = new LongAdder(); // hands the optimal strategy folds under their paytable
+    private final LongAdder pairPlusBets = new LongAdder();
+    private final LongAdder pairPlusHits = new LongAdder();
+    private final LongAdder wagered = new LongAdder();
+    private final LongAdder net = new LongAdder();
+    private final DoubleAdder expectedNet = new DoubleAdder();
+    private final DoubleAdder residualSquares = new DoubleAdder();
+    private final LongAdder[] ranks = new LongAdder[RANK_NAMES.length];
+    private final LongAdder alerts = new LongAdder();
+
+    // Sampler state, guarded by this
+    private final Window[] samples;
+    private int newest;
+    private int sampled = 1;
+    private final boolean[] alerting = new boolean[2]; // window, since start
+
+    // Counts over a span of time; all money in dollars
+    public static final class Window {
+        public final long nanos; // when the later sample was taken
+        public final long millis; // span covered
+        public final long hands, folds, optimalFolds, pairPlusBets, pairPlusHits, wagered, net;
+        public final double expectedNet, residualSquares;
+        private final long[] ranks;
+
+        Window(long nanos, long millis, long hands, long folds, long optimalFolds, long pairPlusBets,
+               long pairPlusHits, long wagered, long net, double expectedNet, double residualSquares, long[] ranks) {
+            this.nanos = nanos;
+            this.millis = millis;
+            this.hands = hands;
+            this.folds = folds;
+            this.optimalFolds = optimalFolds;
+            this.pairPlusBets = pairPlusBets;
+            this.pairPlusHits = pairPlusHits;
+            this.wagered = wagered;
+            this.net = net;
+            this.expectedNet = expectedNet;
+            this.residualSquares = residualSquares;
+            this.ranks = ranks;
+        }
+
+        Window minus(Window earlier) {
+            long[] counts = new long[ranks.length];
+            for (int rank = 0; rank < counts.length; rank++) {
+                counts[rank] = ranks[rank] - earlier.ranks[rank];
+            }
+            return new Window(nanos, (nanos - earlier.nanos) / 1_000_000, hands - earlier.hands,
+                    folds - earlier.folds, optimalFolds - earlier.optimalFolds, pairPlusBets - earlier.pairPlusBets, pairPlusHits - earlier.pairPlusHits,
+                    wagered - earlier.wagered, net - earlier.net, expectedNet - earlier.expectedNet,
+                    residualSquares - earlier.residualSquares, counts);
+        }
+
+        // Paid back per dollar wagered (ante, play and Pair Plus)
+        public double rtp() { return wagered == 0 ? Double.NaN : (wagered + net) / (double) wagered; }
+        public double expectedRtp() { return wagered == 0 ? Double.NaN : (wagered + expectedNet) / wagered; }
+        public double foldRate() { return hands == 0 ? Double.NaN : folds / (double) hands; }
+        public double optimalFoldRate() { return hands == 0 ? Double.NaN : optimalFolds / (double) hands; }
+        public double pairPlusHitRate() { return pairPlusBets == 0 ? Double.NaN : pairPlusHits / (double) pairPlusBets; }
+        public long rankCount(int rank) { return ranks[rank]; }
+        public double rankFrequency(int rank) { return hands == 0 ? Double.NaN : ranks[rank] / (double) hands; }
+
+        // Standard deviations between the results paid and the results expected; 0 without the strategy table
+        public double drift() {
+            return residualSquares <= 0 ? 0 : (net - expectedNet) / Math.sqrt(residualSquares);
+        }
+    }
+
+    public LiveStats(StrategyTable strategy, long sampleMs, long windowMs, double alertZ, long alertMinHands,
+                     Consumer<String> alertLog) {
+        this.strategy = strategy;
+        this.sampleMs = Math.max(1, sampleMs);
+        this.windowMs = Math.max(this.sampleMs, windowMs);
+        this.alertZ = alertZ;
+        this.alertMinHands = alertMinHands;
+        this.alertLog = alertLog;
+        for (int rank = 0; rank < ranks.length; rank++) {
+            ranks[rank] = new LongAdder();
+        }
+        this.samples = new Window[(int) ((this.windowMs + this.sampleMs - 1) / this.sampleMs) + 1];
+        this.samples[0] = totals();
+    }
+
+    public static LiveStats open(ServerConfig config, StrategyTable strategy, Consumer<String> alertLog) {
+        return new LiveStats(strategy, config.getStatsSampleMs(), config.getStatsWindowMs(), config.getStatsAlertZ(),
+                config.getStatsAlertMinHands(), alertLog);
+    }
+
+    // One settled hand under the paytable it was dealt with; play is 0 and pairPlusWinnings 0 when folded.
+    // The 6 Card Bonus is settled either way and is fixed by the cards, so it is expected as paid.
+    public void record(Paytable paytable, int[] cards, int ante, int pairPlus, int sixCard, int play,
+                       int totalWinnings, int pairPlusWinnings, int sixCardWinnings, boolean folded) {
+        hands.increment();
+        ranks[ThreeCardLogic.evalHand(cards[0], cards[1], cards[2])].increment();
+        wagered.add(ante + pairPlus + sixCard + play);
+        net.add(totalWinnings);
+        if (folded) folds.increment();
+        if (pairPlus > 0) {
+            pairPlusBets.increment();
+            if (pairPlusWinnings > 0) pairPlusHits.increment();
+        }
+        if (strategy != null) {
+            double playExpectation = strategy.playExpectation(paytable, cards[0], cards[1], cards[2]);
+            if (playExpectation <= StrategyTable.FOLD) optimalFolds.increment();
+            double expected = (folded ? -(ante + pairPlus) : ante * playExpectation + pairPlusWinnings - pairPlus)
+                    + sixCardWinnings - sixCard;
+            double residual = totalWinnings - expected;
+            expectedNet.add(expected);
+            residualSquares.add(residual * residual);
+        }
+    }
+
+    // Everything recorded so far, read now rather than at the last sample
+    public Window totals() {
+        long[] counts = new long[ranks.length];
+        for (int rank = 0; rank < counts.length; rank++) {
+            counts[rank] = ranks[rank].sum();
+        }
+        return new Window(System.nanoTime(), 0, hands.sum(), folds.sum(), optimalFolds.sum(), pairPlusBets.sum(), pairPlusHits.sum(),
+                wagered.sum(), net.sum(), expectedNet.sum(), residualSquares.sum(), counts);
+    }
+
+    // Called every stats.sampleMs; also checks for drift
+    public synchronized void sample() {
+        newest = (newest + 1) % samples.length;
+        samples[newest] = totals();
+        sampled = Math.min(sampled + 1, samples.length);
+        Window window = window();
+        check(0, span(window.millis) + " window", window);
+        check(1, "since start", samples[newest]);
+    }
+
+    private void check(int scope, String label, Window window) {
+        if (strategy == null || window.hands < alertMinHands) return;
+        boolean drifting = Math.abs(window.drift()) > alertZ;
+        if (drifting && !alerting[scope]) {
+            alerts.increment();
+            alertLog.accept(String.format("RTP drift alert (%s): paid %.3f%%, expected %.3f%% over %,d hands, z %+.1f",
+                    label, window.rtp() * 100, window.expectedRtp() * 100, window.hands, window.drift()));
+        } else if (!drifting && alerting[scope]) {
+            alertLog.accept(String.format("RTP drift cleared (%s): paid %.3f%%, expected %.3f%%, z %+.1f",
+                    label, window.rtp() * 100, window.expectedRtp() * 100, window.drift()));
+        }
+        alerting[scope] = drifting;
+    }
+
+    // The rolling window, or as much of it as has been sampled
+    public synchronized Window window() {
+        int back = sampled - 1;
+        return samples[newest].minus(samples[Math.floorMod(newest - back, samples.length)]);
+    }
+
+    // From startup to the newest sample
+    public synchronized Window sinceStart() {
+        return samples[newest];
+    }
+
+    public boolean hasExpectations() { return strategy != null; }
+    public long getAlertCount() { return alerts.sum(); }
+
+    // Two lines for the server window, as of the newest sample
+    public String summary() {
+        Window window = window();
+        Window total = sinceStart();
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("RTP %s %s | since start %s | fold %s (Q-6-4 %.1f%%", span(window.millis),
+                rtp(window), rtp(total), percent(total.foldRate()), Q64_FOLD_PROBABILITY * 100));
+        if (strategy != null) out.append(", optimal ").append(percent(total.optimalFoldRate()));
+        out.append(String.format(") | Pair Plus hits %s (%.1f%%)%n", percent(total.pairPlusHitRate()),
+                PAIR_PLUS_HIT_PROBABILITY * 100));
+        out.append(String.format("Hands %,d:", total.hands));
+        for (int rank = 0; rank < RANK_NAMES.length; rank++) {
+            out.append(String.format(" %s %s (%.2f%%)", RANK_NAMES[rank], percent(total.rankFrequency(rank)),
+                    RANK_PROBABILITY[rank] * 100));
+        }
+        return out.toString();
+    }
+
+    private String rtp(Window window) {
+        if (strategy == null) return percent(window.rtp());
+        return String.format("%s (expected %s, z %+.1f)", percent(window.rtp()), percent(window.expectedRtp()),
+                window.drift());
+    }
+
+    private static String percent(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.2f%%", value * 100);
+    }
+
+    private static String span(long millis) {
+        long seconds = Math.round(millis / 1000.0);
+        return seconds < 120 ? seconds + "s" : seconds / 60 + "m";
+    }
+
+    public void writePrometheus(StringBuilder out) {
+        Window total = totals();
+        ServerMetrics.header(out, "poker_hands_total", "counter", "Player hands settled, by rank");
+        for (int rank = 0; rank < RANK_NAMES.length; rank++) {
+            ServerMetrics.sample(out, "poker_hands_total", "rank", RANK_NAMES[rank], total.rankCount(rank));
+        }
+        ServerMetrics.header(out, "poker_folds_total", "counter", "Player hands folded");
+        ServerMetrics.sample(out, "poker_folds_total", null, null, total.folds);
+        ServerMetrics.header(out, "poker_pair_plus_bets_total", "counter", "Hands with a Pair Plus bet");
+        ServerMetrics.sample(out, "poker_pair_plus_bets_total", null, null, total.pairPlusBets);
+        ServerMetrics.header(out, "poker_pair_plus_hits_total", "counter", "Pair Plus bets paid");
+        ServerMetrics.sample(out, "poker_pair_plus_hits_total", null, null, total.pairPlusHits);
+        ServerMetrics.header(out, "poker_wagered_dollars_total", "counter", "Ante, play and Pair Plus wagered");
+        ServerMetrics.sample(out, "poker_wagered_dollars_total", null, null, total.wagered);
+        // Gauges, not counters: these nets fall whenever the house wins
+        ServerMetrics.header(out, "poker_player_net_dollars", "gauge", "Net paid to players since start, negative when the house wins");
+        ServerMetrics.sample(out, "poker_player_net_dollars", null, null, total.net);
+        if (strategy != null) {
+            ServerMetrics.header(out, "poker_player_expected_net_dollars", "gauge", "Net players were expected to win since start given their cards and decisions");
+            ServerMetrics.sample(out, "poker_player_expected_net_dollars", null, null, total.expectedNet);
+            ServerMetrics.header(out, "poker_rtp_drift", "gauge", "Standard deviations between paid and expected results over the rolling window");
+            ServerMetrics.sample(out, "poker_rtp_drift", null, null, window().drift());
+            ServerMetrics.header(out, "poker_rtp_drift_alerts_total", "counter", "RTP drift alerts raised");
+            ServerMetrics.sample(out, "poker_rtp_drift_alerts_total", null, null, alerts.sum());
+        }
+    }
+}
@@ -0,0 +1,375 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Bot client for finding the server's saturation point. Opens N connections and
+// plays full rounds (PLACE_BETS, PLAY or FOLD, CONTINUE) with a fixed policy:
+//
+//   java -cp target/classes LoadGenerator --port 5555 --clients 50 --duration 30
+//   java -cp target/classes LoadGenerator --clients 200 --rate 5000 --wire binary
+//
+// Without --rate every bot starts its next round as soon as the last one ends
+// (closed loop). With --rate rounds are scheduled at that total rate whatever
+// the server does (open loop) and latency is taken from the scheduled start, so
+// a stalled server shows up as queueing delay rather than a lower arrival rate.
+// Bots share tables, so run the server with a short --table.betWindowMs when
+// bots may sit idle (open loop below saturation).
+//
+// With --batch n each bot sends AUTO_PLAY requests for n rounds instead, and
+// latency is per batch.
+public class LoadGenerator {
+    private final String host;
+    private final int port;
+    private final int clients;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final double rate;
+    private final String policy;
+    private final boolean binary;
+    private final int ante;
+    private final int pairPlus;
+    private final int sixCard;
+    private final int batch;
+
+    private volatile boolean running = true;
+    private volatile LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder plays = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder winnings = new LongAdder();
+    private final BlockingQueue<Long> schedule = new LinkedBlockingQueue<>();
+
+    public LoadGenerator(Map<String, String> options) {
+        host = options.getOrDefault("host", "localhost");
+        port = ServerConfig.parseInt("port", options.getOrDefault("port", "5555"));
+        clients = ServerConfig.parseInt("clients", options.getOrDefault("clients", "10"));
+        durationNanos = TimeUnit.SECONDS.toNanos(ServerConfig.parseLong("duration", options.getOrDefault("duration", "30")));
+        warmupNanos = TimeUnit.SECONDS.toNanos(ServerConfig.parseLong("warmup", options.getOrDefault("warmup", "5")));
+        rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        policy = options.getOrDefault("policy", "q64");
+        binary = options.getOrDefault("wire", "legacy").equals("binary");
+        ante = ServerConfig.parseInt("ante", options.getOrDefault("ante", "10"));
+        pairPlus = ServerConfig.parseInt("pairplus", options.getOrDefault("pairplus", "5"));
+        sixCard = ServerConfig.parseInt("sixcard", options.getOrDefault("sixcard", "0"));
+        batch = ServerConfig.parseInt("batch", options.getOrDefault("batch", "0"));
+        if (!policy.matches("q64|play|fold|random")) {
+            throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+    }
+
+    public static String usage() {
+        return "Options:\n"
+                + "  --host <name>        server host (default localhost)\n"
+                + "  --port <n>           server port (default 5555)\n"
+                + "  --clients <n>        concurrent connections (default 10)\n"
+                + "  --duration <s>       measured run time (default 30)\n"
+                + "  --warmup <s>         unmeasured time before that (default 5)\n"
+                + "  --rate <n>           open loop at n rounds/s in total; 0 = closed loop (default 0)\n"
+                + "  --policy <name>      q64 | play | fold | random (default q64)\n"
+                + "  --wire <name>        legacy | binary (default legacy)\n"
+                + "  --ante <n>           ante per round (default 10)\n"
+                + "  --pairplus <n>       Pair Plus per round (default 5)\n"
+                + "  --sixcard <n>        6 Card Bonus per round (default 0)\n"
+                + "  --batch <n>          AUTO_PLAY n rounds per request, Q-6-4 only; 0 = off (default 0)\n";
+    }
+
+    public void run() throws InterruptedException {
+        List<Thread> bots = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Thread bot = new Thread(this::botLoop, "bot-" + (i + 1));
+            bot.setDaemon(true);
+            bots.add(bot);
+            bot.start();
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        if (rate > 0) {
+            Thread dispatcher = new Thread(() -> dispatch(start, end), "dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+
+        boolean measuring = warmupNanos == 0;
+        long lastRounds = 0;
+        long lastErrors = 0;
+        long lastReport = start;
+        while (System.nanoTime() < end) {
+            Thread.sleep(1000);
+            long now = System.nanoTime();
+            if (!measuring && now >= measureFrom) {
+                // Drop the warm-up from the final figures
+                measuring = true;
+                latency = new LatencyHistogram();
+                rounds.reset();
+                plays.reset();
+                errors.reset();
+                winnings.reset();
+                lastRounds = 0;
+                lastErrors = 0;
+            }
+            long total = rounds.sum();
+            long failed = errors.sum();
+            System.out.printf("%s %5.0fs  %,9.0f rounds/s  p50 %7.2f ms  p99 %7.2f ms  errors %d  backlog %d%n",
+                    measuring ? "run   " : "warmup", (now - start) / 1e9,
+                    (total - lastRounds) / ((now - lastReport) / 1e9),
+                    latency.valueAtQuantile(0.5) / 1e6, latency.valueAtQuantile(0.99) / 1e6,
+                    failed - lastErrors, schedule.size());
+            lastRounds = total;
+            lastErrors = failed;
+            lastReport = now;
+        }
+        running = false;
+        for (Thread bot : bots) {
+            bot.join(2000);
+        }
+        report(Math.min(durationNanos, System.nanoTime() - measureFrom));
+    }
+
+    private void report(long measuredNanos) {
+        LatencyHistogram histogram = latency;
+        long total = rounds.sum();
+        System.out.println();
+        System.out.printf("Rounds:        %,d in %.1f s (%,.1f rounds/s, %s loop, %d clients, %s wire%s)%n",
+                total, measuredNanos / 1e9, total / (measuredNanos / 1e9),
+                rate > 0 ? "open" : "closed", clients, binary ? "binary" : "legacy",
+                batch > 0 ? ", batches of " + batch : "");
+        System.out.printf("Latency:       p50 %.3f ms  p99 %.3f ms  p99.9 %.3f ms  max %.3f ms%n",
+                histogram.valueAtQuantile(0.5) / 1e6, histogram.valueAtQuantile(0.99) / 1e6,
+                histogram.valueAtQuantile(0.999) / 1e6, histogram.getMax() / 1e6);
+        System.out.printf("Errors:        %,d%n", errors.sum());
+        if (total > 0 && batch > 0) {
+            System.out.printf("Net per round: $%.3f%n", winnings.sum() / (double) total);
+        } else if (total > 0) {
+            System.out.printf("Play rate:     %.2f%%  net per round $%.3f%n",
+                    plays.sum() * 100.0 / total, winnings.sum() / (double) total);
+        }
+    }
+
+    // Open loop: one scheduled start time per round, taken by whichever bot is free
+    private void dispatch(long start, long end) {
+        long period = (long) (1e9 / rate);
+        long next = start;
+        while (running && next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            schedule.offer(next);
+            next += period;
+        }
+    }
+
+    private void botLoop() {
+        Bot bot = null;
+        while (running) {
+            try {
+                long startedAt;
+                if (rate > 0) {
+                    Long due = schedule.poll(100, TimeUnit.MILLISECONDS);
+                    if (due == null) continue;
+                    startedAt = due;
+                } else {
+                    startedAt = System.nanoTime();
+                }
+                if (bot == null) {
+                    bot = new Bot(host, port, binary);
+                }
+                if (batch > 0) {
+                    long net = bot.playBatch();
+                    latency.record(System.nanoTime() - startedAt);
+                    rounds.add(batch);
+                    winnings.add(net);
+                    continue;
+                }
+                int net = bot.playRound();
+                latency.record(System.nanoTime() - startedAt);
+                rounds.increment();
+                winnings.add(net);
+            } catch (IOException | ClassNotFoundException e) {
+                if (running) {
+                    errors.increment();
+                }
+                if (bot != null) {
+                    bot.close();
+                    bot = null;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        if (bot != null) {
+            bot.close();
+        }
+    }
+
+    private boolean decide(List<Card> hand) {
+        switch (policy) {
+            case "play": return true;
+            case "fold": return false;
+            case "random": return ThreadLocalRandom.current().nextBoolean();
+            default:
+                return ThreeCardLogic.playsQ64(hand.get(0).getCode(), hand.get(1).getCode(), hand.get(2).getCode());
+        }
+    }
+
+    // One connection, speaking either wire format
+    private class Bot {
+        private final Socket socket;
+        private ObjectOutputStream objectOut;
+        private ObjectInputStream objectIn;
+        private DataInputStream binaryIn;
+        private OutputStream binaryOut;
+
+        Bot(String host, int port, boolean binary) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 5000);
+            socket.setSoTimeout(60_000);
+            if (binary) {
+                binaryIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                binaryOut = new BufferedOutputStream(socket.getOutputStream());
+                binaryIn.readFully(new byte[4]); // serialization header every client is greeted with
+                binaryOut.write(WireCodec.hello(WireCodec.VERSION));
+                binaryOut.flush();
+                byte[] hello = new byte[4];
+                binaryIn.readFully(hello);
+                if (WireCodec.helloVersion(hello, 0) < 1) {
+                    throw new IOException("Server did not accept the binary protocol");
+                }
+            } else {
+                objectOut = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                objectOut.flush();
+                objectIn = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            }
+        }
+
+        // Net result of one full round
+        int playRound() throws IOException, ClassNotFoundException {
+            PokerInfo bets = new PokerInfo("PLACE_BETS");
+            bets.setAnteBet(ante);
+            bets.setPairPlusBet(pairPlus);
+            bets.setSixCardBet(sixCard);
+            send(bets);
+            PokerInfo dealt = expect("DEAL_CARDS");
+
+            if (decide(dealt.getPlayerHand())) {
+                plays.increment();
+                send(new PokerInfo("PLAY"));
+                expect("SHOW_DEALER");
+                send(new PokerInfo("CONTINUE"));
+            } else {
+                send(new PokerInfo("FOLD"));
+            }
+            PokerInfo result = expect("GAME_RESULT");
+            expect("ROUND_COMPLETE");
+            if (objectOut != null) {
+                // Keep the stream's handle table from growing for the whole run
+                objectOut.reset();
+            }
+            return result.getTotalWinnings();
+        }
+
+        // Net result of one AUTO_PLAY batch, summed over its reports
+        long playBatch() throws IOException, ClassNotFoundException {
+            PokerInfo request = new PokerInfo("AUTO_PLAY");
+            request.setAnteBet(ante);
+            request.setPairPlusBet(pairPlus);
+            request.setSixCardBet(sixCard);
+            request.setRounds(batch);
+            send(request);
+            long net = 0;
+            int played = 0;
+            PokerInfo report;
+            do {
+                report = expect("AUTO_RESULT");
+                net += report.getTotalWinnings();
+                played += report.getRounds();
+            } while (!AutoPlay.COMPLETE.equals(report.getGameState()));
+            if (played != batch) {
+                throw new IOException("Batch refused or cut short: " + report.getGameMessage());
+            }
+            if (objectOut != null) {
+                objectOut.reset();
+            }
+            return net;
+        }
+
+        private void send(PokerInfo info) throws IOException {
+            if (objectOut != null) {
+                objectOut.writeObject(info);
+                objectOut.flush();
+            } else {
+                binaryOut.write(WireCodec.encodeFrame(info));
+                binaryOut.flush();
+            }
+        }
+
+        private PokerInfo expect(String type) throws IOException, ClassNotFoundException {
+            PokerInfo info = objectIn != null ? (PokerInfo) objectIn.readObject() : WireCodec.readFrame(binaryIn);
+            if (!type.equals(info.getMessageType())) {
+                throw new IOException("Expected " + type + " but got " + info.getMessageType());
+            }
+            return info;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+        return options;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator generator;
+        try {
+            generator = new LoadGenerator(parseOptions(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(usage());
+            System.exit(2);
+            return;
+        }
+        generator.run();
+    }
+}
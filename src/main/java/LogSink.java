@@ -0,0 +1,42 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Destination for batches of formatted log lines; called only from the EventLog thread
+public interface LogSink {
+
+    // The list is reused once this returns; copy it to keep the lines
+    void write(List<String> lines);
+
+    default void close() {}
+
+    // Sinks from the "log" setting: comma-separated console | file:<path> | none
+    static List<LogSink> fromConfig(ServerConfig config) throws IOException {
+        List<LogSink> sinks = new ArrayList<>();
+        for (String spec : config.getLog().split(",")) {
+            spec = spec.trim();
+            if (spec.isEmpty() || spec.equals("none")) {
+                continue;
+            } else if (spec.equals("console")) {
+                sinks.add(console(System.out));
+            } else if (spec.startsWith("file:")) {
+                sinks.add(new RollingFileSink(spec.substring(5), config.getLogMaxBytes(), config.getLogFiles()));
+            } else {
+                throw new IllegalArgumentException("Unknown log sink: " + spec);
+            }
+        }
+        return sinks;
+    }
+
+    static LogSink console(PrintStream out) {
+        return lines -> {
+            StringBuilder text = new StringBuilder();
+            for (String line : lines) {
+                text.append(line).append(System.lineSeparator());
+            }
+            out.print(text);
+            out.flush();
+        };
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// Message types with their one-byte wire codes. Code 0 is reserved for names
+// the codec does not know, which travel as strings instead.
+public enum MessageType {
+    PLACE_BETS(1),
+    PLAY(2),
+    FOLD(3),
+    NEW_GAME(4),
+    CONTINUE(5),
+    DEAL_CARDS(6),
+    SHOW_DEALER(7),
+    GAME_RESULT(8),
+    ROUND_COMPLETE(9),
+    PLAY_OR_FOLD(10),
+    RESUME(11),
+    SESSION(12),
+    AUTO_PLAY(13),
+    AUTO_RESULT(14);
+
+    public static final int CUSTOM = 0;
+
+    private static final MessageType[] BY_CODE = new MessageType[64];
+    private static final Map<String, MessageType> BY_NAME = new HashMap<>();
+
+    static {
+        for (MessageType type : values()) {
+            BY_CODE[type.code] = type;
+            BY_NAME.put(type.name(), type);
+        }
+    }
+
+    private final int code;
+
+    MessageType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() { return code; }
+
+    // null when the code is not assigned
+    public static MessageType fromCode(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    // null when the name has no code
+    public static MessageType fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+}
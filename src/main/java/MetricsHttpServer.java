@@ -0,0 +1,43 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+// Serves ServerMetrics and LiveStats on http://127.0.0.1:<metrics.port>/metrics for Prometheus.
+// Bound to loopback only; put a proxy in front to scrape it remotely.
+public class MetricsHttpServer {
+    private final HttpServer http;
+
+    public MetricsHttpServer(ServerMetrics metrics, LiveStats stats, int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", exchange -> {
+            StringBuilder text = new StringBuilder(4096);
+            metrics.writePrometheus(text);
+            stats.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        http.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        http.start();
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public void stop() {
+        http.stop(0);
+    }
+}
@@ -0,0 +1,266 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One client on an NIO event loop. The handshake is the same as SocketTransport's
+// (see WireCodec). Binary clients then exchange WireCodec frames; anyone else sends
+// legacy frames: a 4-byte big-endian length followed by one PokerInfo written with
+// its own ObjectOutputStream.
+//
+// Output is queued and written by the loop as the socket takes it; like
+// SocketTransport, a send fails once wire.queueLimit messages are waiting.
+public class NioConnection implements PokerTransport {
+    static final int MAX_FRAME = 64 * 1024;
+    private static final int READ_BUFFER = 1024;
+    private static final int GATHER = 64;
+
+    private static final int UNKNOWN = 0;
+    private static final int LEGACY = 1;
+    private static final int BINARY = 2;
+
+    private final NioEngine.EventLoop loop;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ServerMetrics metrics;
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final int queueLimit;
+    private volatile long stalledSince; // nanoTime the socket last refused output, else 0
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER);
+    private final ByteBuffer[] gather = new ByteBuffer[GATHER];
+    private ClientHandler handler;
+    private volatile int mode = UNKNOWN;
+    private volatile boolean closed;
+
+    NioConnection(NioEngine.EventLoop loop, SocketChannel channel, SelectionKey key, ServerConfig config,
+                  ServerMetrics metrics) throws IOException {
+        this.loop = loop;
+        this.channel = channel;
+        this.key = key;
+        this.metrics = metrics;
+        this.queueLimit = Math.max(1, config.getWireQueueLimit());
+        enqueue(WireCodec.STREAM_HEADER);
+        onWritable();
+    }
+
+    public boolean isBinary() {
+        return mode == BINARY;
+    }
+
+    void setHandler(ClientHandler handler) {
+        this.handler = handler;
+    }
+
+    public static byte[] encodeFrame(PokerInfo info) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        bytes.write(new byte[4]); // length, filled in below
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(info);
+        }
+        byte[] frame = bytes.toByteArray();
+        ByteBuffer.wrap(frame).putInt(0, frame.length - 4);
+        return frame;
+    }
+
+    public static PokerInfo decodeFrame(byte[] payload, int offset, int length)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload, offset, length))) {
+            in.setObjectInputFilter(SocketTransport.WIRE_FILTER);
+            return (PokerInfo) in.readObject();
+        }
+    }
+
+    // Loop thread only
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            fail(null);
+            return;
+        }
+        metrics.addBytesIn(read);
+        readBuffer.flip();
+        if (mode == UNKNOWN) {
+            if (readBuffer.remaining() < 4) {
+                readBuffer.compact();
+                return;
+            }
+            int version = WireCodec.helloVersion(readBuffer.array(), readBuffer.position());
+            if (version >= 1) {
+                readBuffer.position(readBuffer.position() + 4);
+                mode = BINARY;
+                enqueue(WireCodec.hello(Math.min(version, WireCodec.VERSION)));
+                onWritable();
+            } else {
+                mode = LEGACY;
+            }
+        }
+
+        while (!closed) {
+            int header;
+            int length;
+            if (mode == BINARY) {
+                int[] frame = WireCodec.peekFrameLength(readBuffer.array(), readBuffer.position(), readBuffer.remaining());
+                if (frame == null) break;
+                header = frame[0];
+                length = frame[1];
+            } else {
+                if (readBuffer.remaining() < 4) break;
+                header = 4;
+                length = readBuffer.getInt(readBuffer.position());
+                if (length <= 0 || length > MAX_FRAME) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+            }
+            if (readBuffer.remaining() < header + length) {
+                // Grow for a frame larger than the buffer
+                if (header + length > readBuffer.capacity()) {
+                    ByteBuffer larger = ByteBuffer.allocate(header + length);
+                    larger.put(readBuffer);
+                    larger.flip();
+                    readBuffer = larger;
+                }
+                break;
+            }
+            readBuffer.position(readBuffer.position() + header);
+            PokerInfo info;
+            if (mode == BINARY) {
+                info = WireCodec.decode(readBuffer.array(), readBuffer.position(), length);
+            } else {
+                try {
+                    info = decodeFrame(readBuffer.array(), readBuffer.position(), length);
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unknown message class: " + e.getMessage());
+                }
+            }
+            readBuffer.position(readBuffer.position() + length);
+            handler.handleClientMessage(info);
+        }
+        readBuffer.compact();
+        // Give back a buffer grown for one large frame
+        if (readBuffer.capacity() > READ_BUFFER && readBuffer.position() <= READ_BUFFER) {
+            readBuffer.flip();
+            readBuffer = ByteBuffer.allocate(READ_BUFFER).put(readBuffer);
+        }
+    }
+
+    // Loop thread only. Queued frames go out in gathering writes of up to GATHER
+    // buffers, one system call for everything a round sent this client.
+    void onWritable() throws IOException {
+        while (!outbound.isEmpty()) {
+            long start = System.nanoTime();
+            int count = 0;
+            for (ByteBuffer buffer : outbound) {
+                gather[count++] = buffer;
+                if (count == GATHER) break;
+            }
+            long written = channel.write(gather, 0, count);
+            metrics.addBytesOut(written);
+            queuedBytes.addAndGet(-written);
+            int sent = 0;
+            while (sent < count && !gather[sent].hasRemaining()) {
+                outbound.poll();
+                backlog.decrementAndGet();
+                sent++;
+            }
+            Arrays.fill(gather, 0, count, null);
+            metrics.recordFlush(sent, System.nanoTime() - start);
+            if (sent < count) {
+                // Socket buffer full, continue on the next OP_WRITE; the stall runs from
+                // the first refusal until the queue empties
+                if (stalledSince == 0) stalledSince = System.nanoTime();
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        stalledSince = 0;
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    @Override
+    public void send(PokerInfo info) throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        if (backlog.get() >= queueLimit) {
+            metrics.slowClientDisconnected();
+            throw new IOException("Client is " + queueLimit + " messages behind");
+        }
+        long start = System.nanoTime();
+        byte[] frame = mode == BINARY ? WireCodec.encodeFrame(info) : encodeFrame(info);
+        metrics.recordEncode(System.nanoTime() - start);
+        enqueue(frame);
+        metrics.recordQueueDepth(backlog.get());
+        if (loop.inLoop()) {
+            onWritable();
+        } else {
+            loop.execute(this::flushFromLoop);
+        }
+    }
+
+    private void enqueue(byte[] bytes) {
+        queuedBytes.addAndGet(bytes.length);
+        backlog.incrementAndGet();
+        outbound.add(ByteBuffer.wrap(bytes));
+    }
+
+    // Read buffer plus output not yet taken by the socket; legacy frames use a
+    // fresh stream each, so nothing is held by a handle table
+    @Override
+    public long getBufferedBytes() {
+        return readBuffer.capacity() + queuedBytes.get();
+    }
+
+    @Override
+    public int getRetainedObjects() {
+        return 0;
+    }
+
+    @Override
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    @Override
+    public long getWriteStallNanos(long now) {
+        long since = stalledSince;
+        return since == 0 ? 0 : now - since;
+    }
+
+    private void flushFromLoop() {
+        try {
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    // Tears the connection down through the handler so the server forgets it
+    void fail(Exception cause) {
+        if (closed) return;
+        if (cause != null) {
+            System.err.println("Client #" + handler.getPlayerId() + " disconnected: " + cause.getMessage());
+        }
+        handler.closeConnection();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        key.cancel();
+        channel.close();
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Non-blocking engine: an acceptor hands connections round-robin to a fixed set
+// of selector loops, so thread count no longer grows with the number of clients.
+// Clients must speak length-prefixed frames (see NioConnection).
+public class NioEngine implements ConnectionEngine {
+    private final PokerServer server;
+    private final EventLoop[] loops;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private int nextLoop;
+
+    public NioEngine(PokerServer server, int loopCount) {
+        this.server = server;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+    }
+
+    @Override
+    public void bind(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(server, i);
+        }
+        running = true;
+    }
+
+    @Override
+    public void serve() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[nextLoop++ % loops.length].register(channel);
+            } catch (IOException e) {
+                if (running) {
+                    server.logGameEvent("Error accepting client: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "nio, " + loops.length + " event loops";
+    }
+
+    // One selector and one thread serving many connections
+    static class EventLoop implements Runnable {
+        private final PokerServer server;
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean open = true;
+
+        EventLoop(PokerServer server, int index) throws IOException {
+            this.server = server;
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-loop-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        // Runs a task on the loop thread
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    NioConnection connection = new NioConnection(this, channel, key, server.getConfig(), server.getMetrics());
+                    ClientHandler handler = new ClientHandler(connection, server, server.newSession());
+                    connection.setHandler(handler);
+                    key.attach(connection);
+                    server.addClientHandler(handler);
+                } catch (IOException e) {
+                    server.logGameEvent("Error registering client: " + e.getMessage());
+                }
+            });
+        }
+
+        void shutdown() {
+            open = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (open) {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (connection == null) continue;
+                        try {
+                            if (key.isValid() && key.isReadable()) connection.onReadable();
+                            if (key.isValid() && key.isWritable()) connection.onWritable();
+                        } catch (IOException | RuntimeException e) {
+                            connection.fail(e);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                System.err.println("Event loop stopped: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (connection != null) {
+                        connection.fail(null);
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing selector: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
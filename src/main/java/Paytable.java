@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// One rules variant's payouts, compiled into flat arrays indexed by ThreeCardLogic
+// rank. Every amount is what comes back per unit staked, the stake included, so 0
+// loses the bet and 1 returns it.
+//
+// A paytable file is a properties file; keys left out keep the standard value:
+//
+//   name=ante-bonus
+//   pairPlus.straightFlush=41     pairPlus.<rank>   per unit of Pair Plus
+//   sixCard.royalFlush=1001       sixCard.<hand>    per unit of 6 Card Bonus, by the best five of
+//                                                   the player's and dealer's six cards
+//   anteBonus.straight=1          anteBonus.<rank>  extra per unit of ante when the hand is played,
+//                                                   whatever the dealer holds
+//   win=2                         ante and play when the player beats a qualifying dealer
+//   push=1                        ante and play on a tie
+//   notQualified.ante=1           ante, then play, when the dealer does not qualify
+//   notQualified.play=0
+//
+// Ranks: highCard, pair, flush, straight, trips, straightFlush.
+// Five-card hands: highCard, pair, twoPair, trips, straight, flush, fullHouse,
+// quads, straightFlush, royalFlush.
+public final class Paytable {
+    static final String[] RANK_KEYS = {"highCard", "pair", "flush", "straight", "trips", "straightFlush"};
+    static final String[] SIX_CARD_KEYS = {"highCard", "pair", "twoPair", "trips", "straight", "flush",
+            "fullHouse", "quads", "straightFlush", "royalFlush"};
+
+    // The payouts the game has always had; the play bet is lost when the dealer does not qualify.
+    // The 6 Card Bonus pays the usual 7, 10, 15, 20, 100, 200 and 1000 to 1.
+    public static final Paytable STANDARD = new Paytable("standard", new int[] {0, 1, 3, 6, 30, 40},
+            new int[RANK_KEYS.length], new int[] {0, 0, 0, 8, 11, 16, 21, 101, 201, 1001}, 2, 1, 1, 0);
+
+    private final String name;
+    private final int[] pairPlus;
+    private final int[] anteBonus;
+    private final int[] sixCard;
+    private final int win;
+    private final int push;
+    private final int notQualifiedAnte;
+    private final int notQualifiedPlay;
+
+    Paytable(String name, int[] pairPlus, int[] anteBonus, int[] sixCard, int win, int push, int notQualifiedAnte,
+             int notQualifiedPlay) {
+        this.name = name;
+        this.pairPlus = pairPlus;
+        this.anteBonus = anteBonus;
+        this.sixCard = sixCard;
+        this.win = win;
+        this.push = push;
+        this.notQualifiedAnte = notQualifiedAnte;
+        this.notQualifiedPlay = notQualifiedPlay;
+    }
+
+    public static Paytable load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        String fileName = file.getFileName().toString();
+        return parse(fileName.replaceFirst("\\.properties$", ""), properties);
+    }
+
+    // Unknown keys and negative amounts are refused, so a typo cannot silently keep a standard payout
+    static Paytable parse(String defaultName, Properties properties) {
+        int[] pairPlus = STANDARD.pairPlus.clone();
+        int[] anteBonus = STANDARD.anteBonus.clone();
+        int[] sixCard = STANDARD.sixCard.clone();
+        int win = STANDARD.win, push = STANDARD.push;
+        int notQualifiedAnte = STANDARD.notQualifiedAnte, notQualifiedPlay = STANDARD.notQualifiedPlay;
+        String name = defaultName;
+
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.equals("name")) {
+                name = value;
+                continue;
+            }
+            int amount = ServerConfig.parseInt(key, value);
+            if (amount < 0) {
+                throw new IllegalArgumentException("Negative payout for " + key + ": " + value);
+            }
+            if (key.startsWith("pairPlus.")) {
+                pairPlus[rank(key, RANK_KEYS)] = amount;
+            } else if (key.startsWith("anteBonus.")) {
+                anteBonus[rank(key, RANK_KEYS)] = amount;
+            } else if (key.startsWith("sixCard.")) {
+                sixCard[rank(key, SIX_CARD_KEYS)] = amount;
+            } else {
+                switch (key) {
+                    case "win": win = amount; break;
+                    case "push": push = amount; break;
+                    case "notQualified.ante": notQualifiedAnte = amount; break;
+                    case "notQualified.play": notQualifiedPlay = amount; break;
+                    default: throw new IllegalArgumentException("Unknown paytable key: " + key);
+                }
+            }
+        }
+        return new Paytable(name, pairPlus, anteBonus, sixCard, win, push, notQualifiedAnte, notQualifiedPlay);
+    }
+
+    private static int rank(String key, String[] names) {
+        String rank = key.substring(key.indexOf('.') + 1);
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(rank)) return i;
+        }
+        throw new IllegalArgumentException("Unknown hand rank in " + key);
+    }
+
+    public String getName() { return name; }
+
+    // Every setting as paytable file lines, keys sorted, so equal paytables give equal text; parse() reads
+    // it back. The hand journal keys paytables by it.
+    public String canonical() {
+        TreeMap<String, Integer> amounts = new TreeMap<>();
+        for (int rank = 0; rank < RANK_KEYS.length; rank++) {
+            amounts.put("pairPlus." + RANK_KEYS[rank], pairPlus[rank]);
+            amounts.put("anteBonus." + RANK_KEYS[rank], anteBonus[rank]);
+        }
+        for (int hand = 0; hand < SIX_CARD_KEYS.length; hand++) {
+            amounts.put("sixCard." + SIX_CARD_KEYS[hand], sixCard[hand]);
+        }
+        amounts.put("win", win);
+        amounts.put("push", push);
+        amounts.put("notQualified.ante", notQualifiedAnte);
+        amounts.put("notQualified.play", notQualifiedPlay);
+        StringBuilder text = new StringBuilder("name=").append(name.replace("\\", "\\\\").replace("\n", "\\n"))
+                .append('\n');
+        for (Map.Entry<String, Integer> amount : amounts.entrySet()) {
+            text.append(amount.getKey()).append('=').append(amount.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    static Paytable parse(String text) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return parse("unnamed", properties);
+    }
+
+    public int pairPlusWinnings(int rank, int bet) {
+        return pairPlus[rank] * bet;
+    }
+
+    // By FiveCardLogic category; settled whether the hand is played or folded
+    public int sixCardWinnings(int category, int bet) {
+        return sixCard[category] * bet;
+    }
+
+    // Paid on a played hand whatever the dealer holds
+    public int anteBonus(int rank, int ante) {
+        return anteBonus[rank] * ante;
+    }
+
+    // Ante and play returned, ante bonus excluded
+    public int mainGameReturn(boolean dealerQualifies, int comparison, int ante, int play) {
+        if (!dealerQualifies) return ante * notQualifiedAnte + play * notQualifiedPlay;
+        if (comparison > 0) return (ante + play) * win;
+        if (comparison < 0) return 0;
+        return (ante + play) * push;
+    }
+
+    // Returned per unit of ante, play equal to the ante, for each outcome
+    int winReturn() { return 2 * win; }
+    int pushReturn() { return 2 * push; }
+    int notQualifiedReturn() { return notQualifiedAnte + notQualifiedPlay; }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(name).append(": Pair Plus");
+        for (int rank = RANK_KEYS.length - 1; rank >= 0; rank--) {
+            if (pairPlus[rank] > 0) out.append(' ').append(RANK_KEYS[rank]).append(' ').append(pairPlus[rank]);
+        }
+        boolean bonus = false;
+        for (int rank = RANK_KEYS.length - 1; rank >= 0; rank--) {
+            if (anteBonus[rank] > 0) {
+                out.append(bonus ? " " : ", ante bonus ").append(RANK_KEYS[rank]).append(' ').append(anteBonus[rank]);
+                bonus = true;
+            }
+        }
+        out.append(", 6 Card Bonus");
+        for (int hand = SIX_CARD_KEYS.length - 1; hand >= 0; hand--) {
+            if (sixCard[hand] > 0) out.append(' ').append(SIX_CARD_KEYS[hand]).append(' ').append(sixCard[hand]);
+        }
+        return out.append(String.format(", win %d, push %d, dealer not qualified %d/%d", win, push,
+                notQualifiedAnte, notQualifiedPlay)).toString();
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// The paytables the tables deal under, one per configured source, assigned to
+// tables round-robin by id. Every paytable is verified before it is used: the
+// exact optimal-strategy return of the main game and the Pair Plus return come
+// from the strategy table's outcome counts in a single pass, the 6 Card Bonus
+// return from counts of every six-card deal, and any of them outside
+// paytable.minReturn..maxReturn refuses the paytable.
+//
+// Files are watched for changes. A changed file that verifies replaces the
+// table's paytable for rounds dealt after the swap; a round in play settles under
+// the paytable it was dealt with. A changed file that does not parse or verify is
+// logged and the paytable in use is kept.
+public class PaytableRegistry {
+    private final StrategyTable strategy;
+    private final double minReturn;
+    private final double maxReturn;
+    private final Consumer<String> log;
+    private final Source[] sources;
+
+    private static class Source {
+        final Path file; // null for the built-in standard paytable
+        long lastModified;
+        volatile Paytable paytable;
+        volatile HouseEdgeSimulator.Report report;
+
+        Source(Path file) {
+            this.file = file;
+        }
+    }
+
+    // Throws IllegalStateException when a configured paytable cannot be loaded or is refused
+    public PaytableRegistry(List<String> names, StrategyTable strategy, double minReturn, double maxReturn,
+                            Consumer<String> log) {
+        this.strategy = strategy;
+        this.minReturn = minReturn;
+        this.maxReturn = maxReturn;
+        this.log = log;
+        this.sources = new Source[names.size()];
+        for (int i = 0; i < sources.length; i++) {
+            String name = names.get(i);
+            Source source = new Source(name.equals("standard") ? null : Paths.get(name));
+            try {
+                install(source, false);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Paytable " + name + " refused: " + e.getMessage(), e);
+            }
+            sources[i] = source;
+        }
+    }
+
+    public static PaytableRegistry open(ServerConfig config, StrategyTable strategy, Consumer<String> log) {
+        List<String> names = new ArrayList<>();
+        for (String name : config.getPaytable().split(",")) {
+            if (!name.trim().isEmpty()) names.add(name.trim());
+        }
+        if (names.isEmpty()) names.add("standard");
+        return new PaytableRegistry(names, strategy, config.getPaytableMinReturn(), config.getPaytableMaxReturn(), log);
+    }
+
+    // Table ids start at 1
+    public Paytable forTable(int tableId) {
+        return sources[Math.floorMod(tableId - 1, sources.length)].paytable;
+    }
+
+    // Run on the table scheduler every paytable.reloadMs
+    public void reload() {
+        for (Source source : sources) {
+            if (source.file == null) continue;
+            try {
+                if (Files.getLastModifiedTime(source.file).toMillis() == source.lastModified) continue;
+                install(source, true);
+            } catch (IOException | RuntimeException e) {
+                log.accept("Paytable " + source.file + " change refused, keeping " + source.paytable.getName()
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // One line per table paytable, for the log when the server starts
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>(sources.length);
+        for (Source source : sources) {
+            lines.add(describe(source, "in use"));
+        }
+        return lines;
+    }
+
+    private static String describe(Source source, String state) {
+        return String.format("Paytable %s %s: main game return %.4f%%, Pair Plus return %.4f%%, "
+                        + "6 Card Bonus return %.4f%% (%s)", source.paytable.getName(), state,
+                source.report.optimalReturn() * 100, source.report.pairPlusReturn * 100,
+                source.report.sixCardReturn * 100, source.paytable);
+    }
+
+    private void install(Source source, boolean swapped) throws IOException {
+        Paytable paytable;
+        if (source.file == null) {
+            paytable = Paytable.STANDARD;
+        } else {
+            // Recorded first, so a refused change is reported once rather than on every check
+            source.lastModified = Files.getLastModifiedTime(source.file).toMillis();
+            paytable = Paytable.load(source.file);
+        }
+        HouseEdgeSimulator.Report report = verify(paytable);
+        source.report = report;
+        source.paytable = paytable;
+        if (swapped) log.accept(describe(source, "verified and swapped in"));
+    }
+
+    HouseEdgeSimulator.Report verify(Paytable paytable) {
+        HouseEdgeSimulator.Report report = HouseEdgeSimulator.exact(paytable, strategy);
+        check("main game", report.optimalReturn());
+        check("Pair Plus", report.pairPlusReturn);
+        check("6 Card Bonus", report.sixCardReturn);
+        return report;
+    }
+
+    private void check(String bet, double rtp) {
+        if (rtp < minReturn || rtp > maxReturn) {
+            throw new IllegalArgumentException(String.format("%s return %.4f%% outside %.4f%%..%.4f%%", bet,
+                    rtp * 100, minReturn * 100, maxReturn * 100));
+        }
+    }
+}
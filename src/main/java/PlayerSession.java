@@ -0,0 +1,92 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// A player's identity, money and seat, which outlive any one connection.
+// While no connection is attached the session is parked: only these fields
+// remain, and the seat is held for session.resumeMs.
+public class PlayerSession {
+    private final int id;
+    private volatile String token; // issued on the first RESUME, see SessionRegistry
+    private final AtomicLong bankroll;
+    private final AtomicReference<ClientHandler> connection = new AtomicReference<>();
+    private volatile Table table;
+    private volatile int seat = -1;
+    private volatile long lastSeenMillis = System.currentTimeMillis(); // last attach or detach
+
+    // Hands settled into the bankroll, and how many of their records the journal has
+    // written; the difference is what a snapshot's bankroll holds beyond the journal.
+    // All guarded by this, so a snapshot reads them together with the bankroll.
+    private long settledHands;
+    private long journaledHands;
+    private long journaledSequence = -1; // of the last record written
+
+    public PlayerSession(int id, long bankroll) {
+        this.id = id;
+        this.bankroll = new AtomicLong(bankroll);
+    }
+
+    public int getId() { return id; }
+    public String getToken() { return token; }
+    void setToken(String token) { this.token = token; }
+
+    public long getBankroll() { return bankroll.get(); }
+
+    // PokerInfo carries money as int
+    public static int toWire(long amount) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, amount));
+    }
+
+    // Credits or debits the balance; returns the new balance
+    public long adjustBankroll(long delta) {
+        return bankroll.addAndGet(delta);
+    }
+
+    // A settled hand, whose journal record follows: adjusts the balance and counts the hand
+    public synchronized long settle(long winnings) {
+        settledHands++;
+        return bankroll.addAndGet(winnings);
+    }
+
+    // Settled hands whose records the journal has not written yet; the bankroll is read with it
+    synchronized long unjournaledHands() {
+        return settledHands - journaledHands;
+    }
+
+    synchronized void journaled(long sequence) {
+        journaledHands++;
+        journaledSequence = sequence;
+    }
+
+    synchronized long getJournaledSequence() { return journaledSequence; }
+
+    long getLastSeenMillis() { return lastSeenMillis; }
+    void setLastSeenMillis(long lastSeenMillis) { this.lastSeenMillis = lastSeenMillis; }
+
+    public ClientHandler getConnection() { return connection.get(); }
+    public boolean isParked() { return connection.get() == null; }
+
+    // Returns the connection this one replaces, if the player reconnected before the old socket died
+    ClientHandler attach(ClientHandler handler) {
+        lastSeenMillis = System.currentTimeMillis();
+        return connection.getAndSet(handler);
+    }
+
+    // False when another connection has already taken the session over
+    boolean detach(ClientHandler handler) {
+        lastSeenMillis = System.currentTimeMillis();
+        return connection.compareAndSet(handler, null);
+    }
+
+    public Table getTable() { return table; }
+    public int getSeat() { return seat; }
+
+    void seatAt(Table table, int seat) {
+        this.table = table;
+        this.seat = seat;
+    }
+
+    void clearSeat() {
+        this.table = null;
+        this.seat = -1;
+    }
+}
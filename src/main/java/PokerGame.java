@@ -1,23 +1,46 @@
 import java.util.ArrayList;
 
 public class PokerGame {
+    public static final int ALL_FACE_UP = 0b111;
+
     private Deck deck;
     private ArrayList<Card> playerHand;
     private ArrayList<Card> dealerHand;
+    // Card codes for allocation-free evaluation
+    private final int[] playerCards = new int[3];
+    private final int[] dealerCards = new int[3];
+    // Bit i set when card i of the hand is face up
+    private int playerFaceUp;
+    private int dealerFaceUp;
+    private Paytable paytable = Paytable.STANDARD;
     private int anteBet;
     private int pairPlusBet;
+    private int sixCardBet;
     private int playBet;
 
     public PokerGame() {
-        this.deck = new Deck();
+        this(new Deck());
+    }
+
+    // Reuses a caller owned deck, e.g. one per connection. A null deck makes a
+    // table seat, which is dealt through dealHands(int[], int[]) instead.
+    public PokerGame(Deck deck) {
+        this.deck = deck;
         this.playerHand = new ArrayList<>();
         this.dealerHand = new ArrayList<>();
-        this.deck.shuffle();
+        if (deck != null) {
+            this.deck.shuffle();
+        }
     }
 
     public void placeBets(int ante, int pairPlus) {
+        placeBets(ante, pairPlus, 0);
+    }
+
+    public void placeBets(int ante, int pairPlus, int sixCard) {
         this.anteBet = ante;
         this.pairPlusBet = pairPlus;
+        this.sixCardBet = sixCard;
         this.playBet = 0;
     }
 
@@ -26,39 +49,62 @@ public class PokerGame {
     }
 
     public void dealHands() {
-        playerHand.clear();
-        dealerHand.clear();
+        newHands();
 
         for (int i = 0; i < 3; i++) {
-            playerHand.add(deck.drawCard());
-            dealerHand.add(deck.drawCard());
+            Card playerCard = deck.drawCard();
+            Card dealerCard = deck.drawCard();
+            playerHand.add(playerCard);
+            dealerHand.add(dealerCard);
+            playerCards[i] = playerCard.getCode();
+            dealerCards[i] = dealerCard.getCode();
         }
 
         // Set player cards face up, dealer cards face down
-        for (Card card : playerHand) {
-            card.setFaceUp(true);
-        }
-        for (Card card : dealerHand) {
-            card.setFaceUp(false);
+        playerFaceUp = ALL_FACE_UP;
+        dealerFaceUp = 0;
+    }
+
+    // Cards dealt by a Table from its shared deck; the dealer hand is the same for every seat
+    public void dealHands(int[] player, int[] dealer) {
+        newHands();
+        for (int i = 0; i < 3; i++) {
+            playerCards[i] = player[i];
+            dealerCards[i] = dealer[i];
+            playerHand.add(Card.of(player[i]));
+            dealerHand.add(Card.of(dealer[i]));
         }
+        playerFaceUp = ALL_FACE_UP;
+        dealerFaceUp = 0;
+    }
+
+    // Fresh lists every round: earlier messages still reference the old ones, and a
+    // Java serialization stream would send a back-reference to an instance it has seen
+    private void newHands() {
+        playerHand = new ArrayList<>(3);
+        dealerHand = new ArrayList<>(3);
     }
 
     public PokerInfo calculateResult() {
+        int dealerKey = ThreeCardLogic.handKey(dealerCards[0], dealerCards[1], dealerCards[2]);
+        return calculateResult(ThreeCardLogic.qualifies(dealerKey), dealerKey);
+    }
+
+    // Settles against a dealer hand evaluated once, so a table pays every seat
+    // from a single dealer evaluation
+    PokerInfo calculateResult(boolean dealerQualifies, int dealerKey) {
         PokerInfo result = new PokerInfo("GAME_RESULT");
 
         // Calculate Pair Plus winnings first (independent of dealer)
-        int pairPlusWinnings = ThreeCardLogic.evalPPWinnings(playerHand, pairPlusBet);
+        int playerRank = ThreeCardLogic.evalHand(playerCards[0], playerCards[1], playerCards[2]);
+        int pairPlusWinnings = paytable.pairPlusWinnings(playerRank, pairPlusBet);
         boolean wonPairPlus = pairPlusWinnings > 0;
 
-        // Check if dealer qualifies
-        boolean dealerQualifies = ThreeCardLogic.dealerQualifies(dealerHand);
-
-        int mainGameWinnings = 0;
+        int comparison = 0;
         StringBuilder message = new StringBuilder();
 
         if (!dealerQualifies) {
             // Dealer doesn't qualify - return ante bet, play wager is push
-            mainGameWinnings = anteBet; // Get ante back
             message.append("Dealer does not have at least Queen high; ante wager is pushed. ");
 
             if (wonPairPlus) {
@@ -68,11 +114,11 @@ public class PokerGame {
             }
         } else {
             // Dealer qualifies - compare hands
-            int comparison = ThreeCardLogic.compareHands(dealerHand, playerHand);
+            int playerKey = ThreeCardLogic.handKey(playerCards[0], playerCards[1], playerCards[2]);
+            comparison = Integer.signum(Integer.compare(playerKey, dealerKey));
 
             if (comparison > 0) {
                 // Player wins
-                mainGameWinnings = (anteBet + playBet) * 2; //payout on both bets
                 message.append("You beat the dealer! ");
 
                 if (wonPairPlus) {
@@ -82,7 +128,6 @@ public class PokerGame {
                 }
             } else if (comparison < 0) {
                 // Dealer wins
-                mainGameWinnings = 0; // Lose both ante and play
                 message.append("You lose to dealer. ");
 
                 if (wonPairPlus) {
@@ -92,7 +137,6 @@ public class PokerGame {
                 }
             } else {
                 // Tie - push both bets
-                mainGameWinnings = anteBet + playBet;
                 message.append("Push! It's a tie. ");
 
                 if (wonPairPlus) {
@@ -102,32 +146,77 @@ public class PokerGame {
                 }
             }
         }
+        int anteBonus = paytable.anteBonus(playerRank, anteBet);
+        if (anteBonus > 0) {
+            message.append(" Ante bonus: $").append(anteBonus);
+        }
+        int mainGameWinnings = paytable.mainGameReturn(dealerQualifies, comparison, anteBet, playBet) + anteBonus;
 
         // Set dealer cards face up for display
-        for (Card card : dealerHand) {
-            card.setFaceUp(true);
-        }
+        dealerFaceUp = ALL_FACE_UP;
 
-        int totalWinnings = mainGameWinnings + pairPlusWinnings - (anteBet + pairPlusBet + playBet);
+        int sixCardWinnings = getSixCardWinnings();
+        appendSixCard(message, sixCardWinnings);
+        int totalWinnings = mainGameWinnings + pairPlusWinnings + sixCardWinnings
+                - (anteBet + pairPlusBet + sixCardBet + playBet);
 
         result.setTotalWinnings(totalWinnings);
         result.setGameMessage(message.toString());
         result.setPlayerHand(playerHand);
         result.setDealerHand(dealerHand);
+        result.setPlayerFaceUp(playerFaceUp);
+        result.setDealerFaceUp(dealerFaceUp);
 
         return result;
     }
 
+    // The 6 Card Bonus does not depend on playing, so a fold settles it too
+    public PokerInfo fold() {
+        int sixCardWinnings = getSixCardWinnings();
+        StringBuilder message = new StringBuilder("You folded and lost your Ante and Pair Plus bets.");
+        appendSixCard(message, sixCardWinnings);
+        PokerInfo result = new PokerInfo("GAME_RESULT");
+        result.setGameMessage(message.toString());
+        result.setTotalWinnings(sixCardWinnings - (anteBet + pairPlusBet + sixCardBet));
+        result.setPlayerHand(playerHand);
+        result.setPlayerFaceUp(playerFaceUp);
+        return result;
+    }
+
+    // Best five of the player's and dealer's cards under the paytable; 0 without a 6 Card Bonus bet
+    public int getSixCardWinnings() {
+        if (sixCardBet == 0) return 0;
+        return paytable.sixCardWinnings(FiveCardLogic.category(FiveCardLogic.bestOfSix(playerCards, dealerCards)),
+                sixCardBet);
+    }
+
+    private void appendSixCard(StringBuilder message, int sixCardWinnings) {
+        if (sixCardBet == 0) return;
+        message.append(sixCardWinnings > 0 ? " You win 6 Card Bonus: $" + sixCardWinnings : " 6 Card Bonus lost.");
+    }
+
     // Getters
     public ArrayList<Card> getPlayerHand() { return playerHand; }
     public ArrayList<Card> getDealerHand() { return dealerHand; }
+    public int[] getPlayerCards() { return playerCards; }
+    public int[] getDealerCards() { return dealerCards; }
+    public int getPlayerFaceUp() { return playerFaceUp; }
+    public int getDealerFaceUp() { return dealerFaceUp; }
+    public void setDealerFaceUp(int dealerFaceUp) { this.dealerFaceUp = dealerFaceUp; }
     public int getAnteBet() { return anteBet; }
     public int getPairPlusBet() { return pairPlusBet; }
+    public int getSixCardBet() { return sixCardBet; }
     public int getPlayBet() { return playBet; }
 
+    // Payouts for the next settlement; tables set the one the round was dealt under
+    public Paytable getPaytable() { return paytable; }
+    public void setPaytable(Paytable paytable) { this.paytable = paytable; }
+
+    // New lists rather than clearing: a message still waiting in an outbound queue holds the old ones
     public void resetGame() {
-        deck.resetDeck();
-        playerHand.clear();
-        dealerHand.clear();
+        if (deck != null) deck.resetDeck();
+        newHands();
+        playerFaceUp = 0;
+        dealerFaceUp = 0;
     }
 }
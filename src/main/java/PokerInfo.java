@@ -2,17 +2,28 @@ import java.io.Serializable;
 import java.util.ArrayList;
 
 public class PokerInfo implements Serializable {
+    // Pinned to the original class so existing clients stay compatible
+    private static final long serialVersionUID = 8173851827444199915L;
+
     private String messageType; // "PLACE_BETS", "PLAY_OR_FOLD", "GAME_RESULT"
     private ArrayList<Card> playerHand;
     private ArrayList<Card> dealerHand;
+    private int playerFaceUp; // bit i set when card i is face up
+    private int dealerFaceUp;
     private int anteBet;
     private int pairPlusBet;
+    private int sixCardBet; // 6 Card Bonus, settled on the best five of the player's and dealer's cards
     private int playBet;
     private int totalWinnings;
     private String gameMessage;
     private int playerId;
     private boolean success;
     private String gameState;
+    private String sessionToken; // RESUME and SESSION only
+    private int bankroll;
+    private int rounds; // AUTO_PLAY and AUTO_RESULT only
+    private boolean detail;
+    private int playAdvantage; // DEAL_CARDS hint: expected gain of PLAY over FOLD, in cents
 
     // Constructors
     public PokerInfo() {}
@@ -33,12 +44,21 @@ public class PokerInfo implements Serializable {
     public ArrayList<Card> getDealerHand() { return dealerHand; }
     public void setDealerHand(ArrayList<Card> dealerHand) { this.dealerHand = dealerHand; }
 
+    public int getPlayerFaceUp() { return playerFaceUp; }
+    public void setPlayerFaceUp(int playerFaceUp) { this.playerFaceUp = playerFaceUp; }
+
+    public int getDealerFaceUp() { return dealerFaceUp; }
+    public void setDealerFaceUp(int dealerFaceUp) { this.dealerFaceUp = dealerFaceUp; }
+
     public int getAnteBet() { return anteBet; }
     public void setAnteBet(int anteBet) { this.anteBet = anteBet; }
 
     public int getPairPlusBet() { return pairPlusBet; }
     public void setPairPlusBet(int pairPlusBet) { this.pairPlusBet = pairPlusBet; }
 
+    public int getSixCardBet() { return sixCardBet; }
+    public void setSixCardBet(int sixCardBet) { this.sixCardBet = sixCardBet; }
+
     public int getPlayBet() { return playBet; }
     public void setPlayBet(int playBet) { this.playBet = playBet; }
 
@@ -56,4 +76,19 @@ public class PokerInfo implements Serializable {
 
     public String getGameState() { return gameState; }
     public void setGameState(String gameState) { this.gameState = gameState; }
+
+    public String getSessionToken() { return sessionToken; }
+    public void setSessionToken(String sessionToken) { this.sessionToken = sessionToken; }
+
+    public int getBankroll() { return bankroll; }
+    public void setBankroll(int bankroll) { this.bankroll = bankroll; }
+
+    public int getRounds() { return rounds; }
+    public void setRounds(int rounds) { this.rounds = rounds; }
+
+    public boolean isDetail() { return detail; }
+    public void setDetail(boolean detail) { this.detail = detail; }
+
+    public int getPlayAdvantage() { return playAdvantage; }
+    public void setPlayAdvantage(int playAdvantage) { this.playAdvantage = playAdvantage; }
 }
\ No newline at end of file
@@ -0,0 +1,413 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Server core shared by the JavaFX window and the headless entry point.
+// Front ends attach as ServerListeners; nothing here depends on JavaFX.
+public class PokerServer {
+    private final ServerConfig config;
+    private final List<ClientHandler> clientHandlers = new CopyOnWriteArrayList<>();
+    private final List<ServerListener> listeners = new CopyOnWriteArrayList<>();
+    private final EventLog eventLog;
+    private final ServerMetrics metrics;
+    private final HandJournal journal;
+    private long recoveredHands; // journaled after the session snapshot, logged by start()
+    private final SessionRegistry sessions;
+    private final StrategyTable strategy;
+    private final PaytableRegistry paytables;
+    private final DeckPool deckPool;
+    private final LiveStats stats;
+    private final List<Table> tables = new ArrayList<>();
+    // Bet windows and decision deadlines for every table
+    private final ScheduledExecutorService tableScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // AUTO_PLAY batches, off the connection threads and event loops
+    private final ExecutorService autoPlayExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "auto-play");
+                thread.setDaemon(true);
+                return thread;
+            });
+    // Writer tasks for blocking connections; a thread is only held while a client is being written to
+    private final ExecutorService wireWriters = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "wire-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ConnectionEngine engine;
+    private MetricsHttpServer metricsHttp;
+    private volatile boolean isRunning;
+
+    public PokerServer(ServerConfig config) {
+        this.config = config;
+        this.eventLog = new EventLog(config.getLogBuffer(), config.getLogFps());
+        this.deckPool = DeckPool.open(config);
+        this.metrics = new ServerMetrics(clientHandlers, eventLog, deckPool);
+        this.journal = openJournal();
+        this.sessions = openSessions();
+        this.strategy = openStrategy();
+        this.paytables = PaytableRegistry.open(config, strategy, this::logGameEvent);
+        if (config.getPaytableReloadMs() > 0) {
+            tableScheduler.scheduleWithFixedDelay(paytables::reload, config.getPaytableReloadMs(),
+                    config.getPaytableReloadMs(), TimeUnit.MILLISECONDS);
+        }
+        this.stats = LiveStats.open(config, strategy, this::logGameEvent);
+        tableScheduler.scheduleAtFixedRate(stats::sample, config.getStatsSampleMs(), config.getStatsSampleMs(),
+                TimeUnit.MILLISECONDS);
+        sessions.startSnapshots(config.getSessionSnapshotMs(), journal, this::logGameEvent);
+        long writeTimeoutMs = config.getWireWriteTimeoutMs();
+        if (writeTimeoutMs > 0) {
+            long period = Math.max(10, writeTimeoutMs / 4);
+            tableScheduler.scheduleAtFixedRate(this::closeStalledConnections, period, period, TimeUnit.MILLISECONDS);
+        }
+        logGameEvent(String.format("Deck pool: %d orders", deckPool.getCapacity()));
+    }
+
+    // An unreadable snapshot is logged and the server starts with no saved sessions
+    // Hands journaled after the snapshot are applied to the restored balances
+    private SessionRegistry openSessions() {
+        String snapshot = config.getSessionSnapshot();
+        try {
+            SessionRegistry registry = new SessionRegistry(config.getSessionBankroll(),
+                    snapshot.equals("none") ? null : Paths.get(snapshot), config.getSessionIdleTtlMs());
+            if (journal != null) recoveredHands = registry.recover(journal.getDir());
+            return registry;
+        } catch (IOException | RuntimeException e) {
+            logGameEvent("Session snapshot not restored: " + e);
+            try {
+                return new SessionRegistry(config.getSessionBankroll(), null);
+            } catch (IOException impossible) {
+                throw new IllegalStateException(impossible);
+            }
+        }
+    }
+
+    public SessionRegistry getSessions() {
+        return sessions;
+    }
+
+    // Hand history is best effort at startup: a bad directory is logged, not fatal
+    private HandJournal openJournal() {
+        try {
+            return HandJournal.open(config, deckPool, metrics);
+        } catch (IOException | RuntimeException e) {
+            logGameEvent("Hand journal disabled: " + e);
+            return null;
+        }
+    }
+
+    // Built on the first start, which takes a few seconds. An unreadable file only
+    // costs the cache: the counts are recomputed in memory, since paytables cannot
+    // be verified without them.
+    private StrategyTable openStrategy() {
+        try {
+            return StrategyTable.open(config);
+        } catch (IOException | RuntimeException e) {
+            logGameEvent("Strategy table not cached: " + e);
+            return StrategyTable.compute();
+        }
+    }
+
+    public StrategyTable getStrategy() {
+        return strategy;
+    }
+
+    public PaytableRegistry getPaytables() {
+        return paytables;
+    }
+
+    public ExecutorService getWireWriters() {
+        return wireWriters;
+    }
+
+    // Output stuck behind a client for wire.writeTimeoutMs: closing the socket also
+    // releases a writer blocked on it
+    private void closeStalledConnections() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(config.getWireWriteTimeoutMs());
+        for (ClientHandler handler : clientHandlers) {
+            PokerTransport transport = handler.getTransport();
+            if (transport != null && transport.getWriteStallNanos(now) > limit) {
+                metrics.writeTimedOut();
+                logGameEvent("Client #" + handler.getPlayerId() + " stopped reading; disconnected after "
+                        + config.getWireWriteTimeoutMs() + " ms with " + transport.getBacklog() + " messages queued");
+                handler.closeConnection();
+            }
+        }
+    }
+
+    public LiveStats getStats() {
+        return stats;
+    }
+
+    // null when journaling is off
+    public HandJournal getJournal() {
+        return journal;
+    }
+
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void addListener(ServerListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ServerListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void start(int port) {
+        config.setPort(port);
+        engine = ConnectionEngine.create(config.getEngine(), this);
+        new Thread(() -> {
+            try {
+                engine.bind(port);
+                isRunning = true;
+                logGameEvent("Server started on port " + port + " (" + engine.getName() + ")");
+                for (String paytable : paytables.describe()) {
+                    logGameEvent(paytable);
+                }
+                if (recoveredHands > 0) {
+                    logGameEvent("Session balances: " + recoveredHands + " hand(s) journaled after the snapshot applied");
+                }
+                startMetricsHttp();
+                fireClientCount();
+
+                engine.serve();
+            } catch (IOException e) {
+                logGameEvent("Failed to start server: " + e.getMessage());
+            }
+        }, "accept-loop").start();
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (engine != null) {
+            engine.stop();
+        }
+        if (metricsHttp != null) {
+            metricsHttp.stop();
+            metricsHttp = null;
+        }
+
+        // Close all client connections
+        for (ClientHandler handler : clientHandlers) {
+            handler.closeConnection();
+        }
+        clientHandlers.clear();
+
+        logGameEvent("Server stopped");
+        fireClientCount();
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    // Next round's card order for a table, pre-shuffled when one is ready; returns its deal number
+    public long nextDeal(byte[] order) {
+        return deckPool.next(order);
+    }
+
+    // A numbered order for one AUTO_PLAY round at this seat
+    public long nextDeal(byte[] order, int seat) {
+        return deckPool.next(order, seat);
+    }
+
+    // Fresh session for a new connection; ids are never reused
+    public PlayerSession newSession() {
+        return sessions.create();
+    }
+
+    public void addClientHandler(ClientHandler clientHandler) {
+        clientHandlers.add(clientHandler);
+        metrics.connectionAccepted();
+        PlayerSession session = clientHandler.getSession();
+        Table table = seat(session);
+        logGameEvent("Client #" + session.getId() + " connected (table " + table.getId() +
+                ", seat " + (session.getSeat() + 1) + ")");
+        fireClientCount();
+    }
+
+    public void removeClientHandler(ClientHandler handler) {
+        clientHandlers.remove(handler);
+        PlayerSession session = handler.getSession();
+        // A connection replaced by a reconnect leaves the session to its successor
+        if (session.detach(handler)) {
+            if (session.getToken() != null) {
+                park(session);
+            } else {
+                release(session);
+                sessions.remove(session);
+            }
+        }
+        logGameEvent("Client #" + handler.getPlayerId() + " disconnected");
+        fireClientCount();
+    }
+
+    // RESUME. Without a token (or with its own) the connection's session becomes
+    // resumable. With the token of an earlier session the connection takes that
+    // session over, seat and hand in play included, and the old connection, if
+    // it is somehow still open, is closed.
+    public void resumeSession(ClientHandler handler, String token) {
+        PlayerSession current = handler.getSession();
+        PlayerSession target = sessions.find(token);
+        PokerInfo reply = new PokerInfo("SESSION");
+
+        if (target == null || target == current) {
+            sessions.issueToken(current);
+            boolean known = target != null || token == null || token.isEmpty();
+            reply.setSuccess(known);
+            if (!known) {
+                reply.setGameMessage("Unknown session; continuing as a new player");
+            }
+            target = current;
+        } else {
+            ClientHandler previous;
+            synchronized (target) {
+                previous = target.attach(handler);
+                handler.setSession(target);
+                current.detach(handler);
+                Table table = current.getTable();
+                int seat = current.getSeat();
+                current.clearSeat();
+                if (target.getTable() == null) {
+                    // Restored from a snapshot, or the seat hold ran out: keep this connection's seat
+                    if (table != null) {
+                        table.replaceSession(seat, target);
+                        target.seatAt(table, seat);
+                    }
+                } else if (table != null) {
+                    table.leave(seat);
+                }
+            }
+            if (previous != null && previous != handler) {
+                previous.closeConnection();
+            }
+            sessions.remove(current);
+            reply.setSuccess(true);
+            reply.setGameMessage("Welcome back");
+            logGameEvent("Client #" + target.getId() + " resumed its session (connected as #" + current.getId() + ")");
+        }
+
+        reply.setPlayerId(target.getId());
+        reply.setSessionToken(target.getToken());
+        reply.setBankroll(PlayerSession.toWire(target.getBankroll()));
+        handler.sendPokerInfo(reply);
+        if (target != current && target.getTable() != null) {
+            target.getTable().resume(target.getSeat());
+        }
+    }
+
+    public void startAutoPlay(ClientHandler handler, PokerInfo request) {
+        AutoPlay batch = AutoPlay.start(this, handler, request);
+        if (batch != null) {
+            autoPlayExecutor.execute(batch);
+        }
+    }
+
+    // Keeps the seat for session.resumeMs in case the player reconnects
+    private void park(PlayerSession session) {
+        Table table = session.getTable();
+        int seat = session.getSeat();
+        if (table == null) return;
+        table.park(seat);
+        tableScheduler.schedule(() -> {
+            synchronized (session) {
+                if (session.isParked() && session.getTable() == table && session.getSeat() == seat) {
+                    release(session);
+                }
+            }
+        }, config.getSessionResumeMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void release(PlayerSession session) {
+        Table table = session.getTable();
+        int seat = session.getSeat();
+        if (table != null) {
+            session.clearSeat();
+            table.leave(seat);
+        }
+    }
+
+    public int getClientCount() {
+        return clientHandlers.size();
+    }
+
+    // First free seat, opening a new table when every table is full
+    private synchronized Table seat(PlayerSession session) {
+        for (Table table : tables) {
+            int seat = table.join(session);
+            if (seat >= 0) {
+                session.seatAt(table, seat);
+                return table;
+            }
+        }
+        Table table = new Table(tables.size() + 1, this, tableScheduler);
+        tables.add(table);
+        session.seatAt(table, table.join(session));
+        return table;
+    }
+
+    // Never blocks the caller; see EventLog
+    public void logGameEvent(String event) {
+        eventLog.publish(event);
+    }
+
+    // Stops serving and flushes the log; the server cannot be restarted afterwards
+    public void shutdown() {
+        if (isRunning) {
+            stop();
+        }
+        tableScheduler.shutdownNow();
+        autoPlayExecutor.shutdownNow();
+        wireWriters.shutdownNow();
+        deckPool.close();
+        if (journal != null) {
+            journal.close();
+        }
+        try {
+            sessions.close();
+        } catch (IOException e) {
+            logGameEvent("Session snapshot failed: " + e.getMessage());
+        }
+        eventLog.close();
+    }
+
+    // The metrics endpoint is optional; failing to bind it only gets logged
+    private void startMetricsHttp() {
+        int port = config.getMetricsPort();
+        if (port <= 0) return;
+        try {
+            metricsHttp = new MetricsHttpServer(metrics, stats, port);
+            logGameEvent("Metrics on http://127.0.0.1:" + metricsHttp.getPort() + "/metrics");
+        } catch (IOException e) {
+            logGameEvent("Metrics endpoint disabled: " + e.getMessage());
+        }
+    }
+
+    private void fireClientCount() {
+        int count = clientHandlers.size();
+        for (ServerListener listener : listeners) {
+            listener.onClientCount(count);
+        }
+    }
+}
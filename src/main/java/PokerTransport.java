@@ -0,0 +1,23 @@
+import java.io.IOException;
+
+// Outbound side of a client connection, independent of the I/O model behind it
+public interface PokerTransport {
+
+    // Queues the message, which may be encoded later on another thread, so it must
+    // not be changed afterwards. Fails when the client is wire.queueLimit messages behind.
+    void send(PokerInfo info) throws IOException;
+
+    void close() throws IOException;
+
+    // Memory held for the connection, for the server status: buffer and queued
+    // output bytes, and objects kept alive by a serialization handle table
+    long getBufferedBytes();
+
+    int getRetainedObjects();
+
+    // Messages sent but not yet written to the socket
+    int getBacklog();
+
+    // How long output has been stuck behind the client, 0 when it is not
+    long getWriteStallNanos(long now);
+}
@@ -1,22 +1,25 @@
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
-import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import javafx.util.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+// JavaFX front end; the server itself lives in PokerServer (see HeadlessServer
+// for running without a display). Accepts the same options as HeadlessServer.
 public class ProjectThreeServer extends Application {
-    private ServerSocket serverSocket;
-    private boolean isRunning;
-    private int port;
-    private List<ClientHandler> clientHandlers;
+    private PokerServer server;
     private ServerController serverController;
+    private final AtomicBoolean clientCountPending = new AtomicBoolean();
+    private volatile int latestClientCount;
+    private Timeline statusRefresh;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
@@ -25,7 +28,38 @@ public class ProjectThreeServer extends Application {
         serverController = loader.getController();
         serverController.setMainApp(this);
 
-        clientHandlers = new CopyOnWriteArrayList<>();
+        ServerConfig config = ServerConfig.fromArgs(getParameters().getRaw());
+        server = new PokerServer(config);
+        for (LogSink sink : LogSink.fromConfig(config)) {
+            server.getEventLog().addSink(sink);
+        }
+        // One FX update per log frame; the batch is copied because the log reuses it
+        server.getEventLog().addSink(lines -> {
+            List<String> copy = new ArrayList<>(lines);
+            Platform.runLater(() -> serverController.appendLog(copy));
+        });
+        // Coalesce count updates so connection storms post at most one pending update
+        server.addListener(count -> {
+            latestClientCount = count;
+            if (clientCountPending.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    clientCountPending.set(false);
+                    serverController.updateClientCount(latestClientCount);
+                });
+            }
+        });
+        serverController.setPort(server.getConfig().getPort());
+
+        // Live metrics in the status bar, sampled once a second on the FX thread; the
+        // statistics are as of LiveStats' last sample, so the refresh never sums adders
+        statusRefresh = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
+            if (server.isRunning()) {
+                serverController.updateStatus("Running | " + server.getMetrics().summary());
+            }
+            serverController.updateLiveStats(server.getStats().summary());
+        }));
+        statusRefresh.setCycleCount(Animation.INDEFINITE);
+        statusRefresh.play();
 
         Scene scene = new Scene(root, 800, 600);
         primaryStage.setTitle("3-Card Poker Server");
@@ -33,82 +67,26 @@ public class ProjectThreeServer extends Application {
         primaryStage.show();
     }
 
-    public void startServer(int port) {
-        this.port = port;
-        new Thread(() -> {
-            try {
-                serverSocket = new ServerSocket(port);
-                isRunning = true;
-
-                Platform.runLater(() -> {
-                    serverController.logMessage("Server started on port " + port);
-                    serverController.updateClientCount(clientHandlers.size());
-                });
-
-                while (isRunning) {
-                    try {
-                        Socket clientSocket = serverSocket.accept();
-                        ClientHandler clientHandler = new ClientHandler(clientSocket, this, clientHandlers.size() + 1);
-                        clientHandlers.add(clientHandler);
-                        new Thread(clientHandler).start();
-
-                        Platform.runLater(() -> {
-                            serverController.logMessage("Client #" + clientHandler.getPlayerId() + " connected");
-                            serverController.updateClientCount(clientHandlers.size());
-                        });
-
-                    } catch (IOException e) {
-                        if (isRunning) {
-                            Platform.runLater(() ->
-                                    serverController.logMessage("Error accepting client: " + e.getMessage())
-                            );
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                Platform.runLater(() ->
-                        serverController.logMessage("Failed to start server: " + e.getMessage())
-                );
-            }
-        }).start();
-    }
-
-    public void stopServer() {
-        isRunning = false;
-
-        // Close all client connections
-        for (ClientHandler handler : clientHandlers) {
-            handler.closeConnection();
+    @Override
+    public void stop() {
+        if (statusRefresh != null) {
+            statusRefresh.stop();
         }
-        clientHandlers.clear();
-
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-            }
-        } catch (IOException e) {
-            System.err.println("Error closing server socket: " + e.getMessage());
+        if (server != null) {
+            server.shutdown();
         }
-
-        Platform.runLater(() -> {
-            serverController.logMessage("Server stopped");
-            serverController.updateClientCount(0);
-        });
     }
 
-    public void removeClientHandler(ClientHandler handler) {
-        clientHandlers.remove(handler);
-        Platform.runLater(() -> {
-            serverController.logMessage("Client #" + handler.getPlayerId() + " disconnected");
-            serverController.updateClientCount(clientHandlers.size());
-        });
+    public void startServer(int port) {
+        server.start(port);
     }
 
-    public void logGameEvent(String event) {
-        Platform.runLater(() -> serverController.logMessage(event));
+    public void stopServer() {
+        server.stop();
+        serverController.updateStatus("Stopped");
     }
 
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Bounded lock-free multi-producer multi-consumer queue (Vyukov's sequenced ring).
+// offer() never blocks: it returns false when the ring is full.
+public class RingBuffer<T> {
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    // Capacity is rounded up to a power of two
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        items = new Object[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(T item) {
+        long position = enqueuePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    items[index] = item;
+                    sequences.lazySet(index, position + 1); // publish
+                    return true;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false; // full
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long position = dequeuePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    T item = (T) items[index];
+                    items[index] = null;
+                    sequences.lazySet(index, position + mask + 1); // free the slot
+                    return item;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return null; // empty
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+    // Moves up to max items to the consumer, returning how many were moved
+    public int drain(Consumer<? super T> consumer, int max) {
+        int count = 0;
+        T item;
+        while (count < max && (item = poll()) != null) {
+            consumer.accept(item);
+            count++;
+        }
+        return count;
+    }
+
+    // Approximate under concurrent use
+    public int size() {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, items.length));
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Appends to a log file, rolling it to path.1 .. path.N once it reaches maxBytes
+public class RollingFileSink implements LogSink {
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private Writer writer;
+    private long written;
+
+    public RollingFileSink(String path, long maxBytes, int maxFiles) throws IOException {
+        this.file = new File(path);
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        open();
+    }
+
+    private void open() throws IOException {
+        written = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(List<String> lines) {
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+                written += line.length() + 1;
+            }
+            writer.flush();
+            if (written >= maxBytes) {
+                roll();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing log " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        new File(file.getPath() + "." + maxFiles).delete();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.exists()) {
+                older.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+        open();
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing log " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Server settings from an optional properties file, overridden by command-line
+// flags of the same name: --config server.properties --port 5555 --engine nio
+public class ServerConfig {
+    private static final String RNG_REMOVED = " is no longer supported: every deal is shuffled from --deck.keyFile";
+
+    private int port = 5555;
+    private String engine = System.getProperty("poker.engine", "thread");
+    private String log = "console";
+    private long logMaxBytes = 10L * 1024 * 1024;
+    private int logFiles = 5;
+    private int logBuffer = 65536;
+    private int logFps = 30;
+    private int metricsPort = 9400;
+    private int tableSeats = 6;
+    private long tableBetWindowMs = 3000;
+    private long tableDecisionMs = 30000;
+    private String journal = "journal";
+    private long journalSegmentBytes = 64L * 1024 * 1024;
+    private long journalSyncMs = 10;
+    private int journalBuffer = 65536;
+    private long sessionBankroll = 1000;
+    private long sessionResumeMs = 60000;
+    private String sessionSnapshot = "sessions.snapshot";
+    private long sessionSnapshotMs = 5000;
+    private long sessionIdleTtlMs = TimeUnit.DAYS.toMillis(30);
+    private int autoPlayMaxRounds = 100000;
+    private int autoPlayReportEvery = 1000;
+    private int wireBufferBytes = 8192;
+    private int wireResetEvery = 1;
+    private int wireQueueLimit = 1024;
+    private long wireWriteTimeoutMs = 10000;
+    private String wireSlowClient = "downgrade";
+    private String strategyTable = "strategy.table";
+    private boolean strategyHints = false;
+    private int deckPool = 1024;
+    private int deckPoolThreads = 1;
+    private String deckKeyFile = "deck.key";
+    private long statsSampleMs = 1000;
+    private long statsWindowMs = 15 * 60 * 1000;
+    private double statsAlertZ = 4;
+    private long statsAlertMinHands = 1000;
+    private String paytable = "standard";
+    private long paytableReloadMs = 2000;
+    private double paytableMinReturn = 0.5;
+    private double paytableMaxReturn = 1.0;
+
+    public static ServerConfig fromArgs(Iterable<String> args) throws IOException {
+        Properties properties = new Properties();
+        String configFile = null;
+        String pendingKey = null;
+
+        for (String arg : args) {
+            if (pendingKey != null) {
+                if (pendingKey.equals("config")) {
+                    configFile = arg;
+                } else {
+                    properties.setProperty(pendingKey, arg);
+                }
+                pendingKey = null;
+            } else if (arg.startsWith("--")) {
+                int equals = arg.indexOf('=');
+                if (equals > 0) {
+                    String key = arg.substring(2, equals);
+                    String value = arg.substring(equals + 1);
+                    if (key.equals("config")) configFile = value; else properties.setProperty(key, value);
+                } else {
+                    pendingKey = arg.substring(2);
+                }
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+        if (pendingKey != null) {
+            throw new IllegalArgumentException("Missing value for --" + pendingKey);
+        }
+
+        if (System.getProperty("poker.rng") != null) {
+            throw new IllegalArgumentException("-Dpoker.rng" + RNG_REMOVED);
+        }
+        ServerConfig config = new ServerConfig();
+        if (configFile != null) {
+            Properties fromFile = new Properties();
+            try (Reader reader = new FileReader(configFile)) {
+                fromFile.load(reader);
+            }
+            config.apply(fromFile);
+        }
+        config.apply(properties);
+        return config;
+    }
+
+    public void apply(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            set(key, properties.getProperty(key).trim());
+        }
+    }
+
+    protected void set(String key, String value) {
+        switch (key) {
+            case "port": port = parseInt(key, value); break;
+            case "engine": engine = value; break;
+            case "rng": throw new IllegalArgumentException(key + RNG_REMOVED);
+            case "log": log = value; break;
+            case "log.maxBytes": logMaxBytes = parseLong(key, value); break;
+            case "log.files": logFiles = parseInt(key, value); break;
+            case "log.buffer": logBuffer = parseInt(key, value); break;
+            case "log.fps": logFps = parseInt(key, value); break;
+            case "metrics.port": metricsPort = parseInt(key, value); break;
+            case "table.seats":
+                tableSeats = parseInt(key, value);
+                if (tableSeats < 1 || tableSeats > 16) {
+                    // One deck deals the dealer and three cards per seat
+                    throw new IllegalArgumentException("Expected 1 to 16 for " + key + ": " + value);
+                }
+                break;
+            case "table.betWindowMs": tableBetWindowMs = parseLong(key, value); break;
+            case "table.decisionMs": tableDecisionMs = parseLong(key, value); break;
+            case "journal": journal = value; break;
+            case "journal.segmentBytes": journalSegmentBytes = parseLong(key, value); break;
+            case "journal.syncMs": journalSyncMs = parseLong(key, value); break;
+            case "journal.buffer": journalBuffer = parseInt(key, value); break;
+            case "session.bankroll": sessionBankroll = parseLong(key, value); break;
+            case "session.resumeMs": sessionResumeMs = parseLong(key, value); break;
+            case "session.snapshot": sessionSnapshot = value; break;
+            case "session.snapshotMs": sessionSnapshotMs = parseLong(key, value); break;
+            case "session.idleTtlMs": sessionIdleTtlMs = parseLong(key, value); break;
+            case "autoplay.maxRounds": autoPlayMaxRounds = parseInt(key, value); break;
+            case "autoplay.reportEvery": autoPlayReportEvery = parseInt(key, value); break;
+            case "wire.bufferBytes": wireBufferBytes = parseInt(key, value); break;
+            case "wire.resetEvery": wireResetEvery = parseInt(key, value); break;
+            case "wire.queueLimit": wireQueueLimit = parseInt(key, value); break;
+            case "wire.writeTimeoutMs": wireWriteTimeoutMs = parseLong(key, value); break;
+            case "wire.slowClient":
+                if (!value.equals("downgrade") && !value.equals("disconnect")) {
+                    throw new IllegalArgumentException("Expected downgrade or disconnect for " + key + ": " + value);
+                }
+                wireSlowClient = value;
+                break;
+            case "strategy.table": strategyTable = value; break;
+            case "strategy.hints": strategyHints = parseBoolean(key, value); break;
+            case "deck.pool": deckPool = parseInt(key, value); break;
+            case "deck.poolThreads": deckPoolThreads = parseInt(key, value); break;
+            case "deck.keyFile": deckKeyFile = value; break;
+            case "stats.sampleMs": statsSampleMs = parseLong(key, value); break;
+            case "stats.windowMs": statsWindowMs = parseLong(key, value); break;
+            case "stats.alertZ": statsAlertZ = parseDouble(key, value); break;
+            case "stats.alertMinHands": statsAlertMinHands = parseLong(key, value); break;
+            case "paytable": paytable = value; break;
+            case "paytable.reloadMs": paytableReloadMs = parseLong(key, value); break;
+            case "paytable.minReturn": paytableMinReturn = parseDouble(key, value); break;
+            case "paytable.maxReturn": paytableMaxReturn = parseDouble(key, value); break;
+            default: throw new IllegalArgumentException("Unknown setting: " + key);
+        }
+    }
+
+    static int parseInt(String key, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    static long parseLong(String key, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    static double parseDouble(String key, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    static boolean parseBoolean(String key, String value) {
+        if (value.equals("true")) return true;
+        if (value.equals("false")) return false;
+        throw new IllegalArgumentException("Expected true or false for " + key + ": " + value);
+    }
+
+    public static String usage() {
+        return "Options (also accepted as key=value lines in --config <file>):\n"
+                + "  --port <n>           listening port (default 5555)\n"
+                + "  --engine <name>      thread | virtual | nio (default thread)\n"
+                + "  --log <sinks>        comma list of console | file:<path> | none (default console)\n"
+                + "  --log.maxBytes <n>   roll log files at this size (default 10 MB)\n"
+                + "  --log.files <n>      rolled log files kept (default 5)\n"
+                + "  --log.buffer <n>     queued log events before new ones are dropped (default 65536)\n"
+                + "  --log.fps <n>        log flushes per second, including the UI (default 30)\n"
+                + "  --metrics.port <n>   Prometheus /metrics on 127.0.0.1, 0 to disable (default 9400)\n"
+                + "  --table.seats <n>    players dealt from one deck and dealer hand, at most 16 (default 6)\n"
+                + "  --table.betWindowMs <n>  wait after the first bet for the other seats (default 3000)\n"
+                + "  --table.decisionMs <n>   time to PLAY or FOLD before a hand is folded (default 30000)\n"
+                + "  --journal <dir>      hand history directory, or none (default journal)\n"
+                + "  --journal.segmentBytes <n>  size of each journal file (default 64 MB)\n"
+                + "  --journal.syncMs <n>     group commit interval (default 10)\n"
+                + "  --journal.buffer <n>     hands queued for the journal writer (default 65536)\n"
+                + "  --session.bankroll <n>   starting balance of a new player (default 1000)\n"
+                + "  --session.resumeMs <n>   seat held for a disconnected resumable player (default 60000)\n"
+                + "  --session.snapshot <file>  saved sessions, or none (default sessions.snapshot)\n"
+                + "  --session.snapshotMs <n> snapshot interval (default 5000)\n"
+                + "  --session.idleTtlMs <n>  resumable session forgotten after this long disconnected, 0 = never\n"
+                + "                           (default 30 days)\n"
+                + "  --autoplay.maxRounds <n> largest AUTO_PLAY batch (default 100000)\n"
+                + "  --autoplay.reportEvery <n>  rounds per AUTO_RESULT report (default 1000)\n"
+                + "  --wire.bufferBytes <n>   socket stream buffer size (default 8192)\n"
+                + "  --wire.resetEvery <n>    reset a legacy client's stream every n messages, 0 = never (default 1)\n"
+                + "  --wire.queueLimit <n>    messages queued for one client before it is disconnected (default 1024)\n"
+                + "  --wire.writeTimeoutMs <n>  disconnect a client whose output is stuck this long, 0 = never (default 10000)\n"
+                + "  --wire.slowClient <name> downgrade | disconnect: past half the queue limit, AUTO_PLAY skips\n"
+                + "                           detail results and progress reports, or keeps sending (default downgrade)\n"
+                + "  --strategy.table <file>  play/fold expected values, built on first start, or none (default strategy.table)\n"
+                + "  --strategy.hints <bool>  send the play advantage with DEAL_CARDS (default false)\n"
+                + "  --deck.pool <n>          shuffled decks kept ready for tables, 0 = shuffle inline (default 1024)\n"
+                + "  --deck.poolThreads <n>   threads shuffling for the pool (default 1)\n"
+                + "  --deck.keyFile <path>    secret key every deal is shuffled from, created owner-only if missing;\n"
+                + "                           none = random for this run, its hands cannot be replayed (default deck.key)\n"
+                + "  --stats.sampleMs <n>     live RTP and hand statistics sample interval (default 1000)\n"
+                + "  --stats.windowMs <n>     rolling statistics window (default 900000, 15 minutes)\n"
+                + "  --stats.alertZ <x>       standard deviations of RTP drift that raise an alert (default 4)\n"
+                + "  --stats.alertMinHands <n>  hands in a window before drift is judged (default 1000)\n"
+                + "  --paytable <files>       comma-separated paytable files or standard, dealt round-robin by table\n"
+                + "                           (default standard)\n"
+                + "  --paytable.reloadMs <n>  check paytable files for changes, 0 = never (default 2000)\n"
+                + "  --paytable.minReturn <x> lowest verified return a paytable may have (default 0.5)\n"
+                + "  --paytable.maxReturn <x> highest verified return a paytable may have (default 1.0)\n";
+    }
+
+    // Getters and setters
+    public int getPort() { return port; }
+    public void setPort(int port) { this.port = port; }
+
+    public String getEngine() { return engine; }
+    public void setEngine(String engine) { this.engine = engine; }
+
+    public String getLog() { return log; }
+    public void setLog(String log) { this.log = log; }
+
+    public long getLogMaxBytes() { return logMaxBytes; }
+    public void setLogMaxBytes(long logMaxBytes) { this.logMaxBytes = logMaxBytes; }
+
+    public int getLogFiles() { return logFiles; }
+    public void setLogFiles(int logFiles) { this.logFiles = logFiles; }
+
+    public int getLogBuffer() { return logBuffer; }
+    public void setLogBuffer(int logBuffer) { this.logBuffer = logBuffer; }
+
+    public int getLogFps() { return logFps; }
+    public void setLogFps(int logFps) { this.logFps = logFps; }
+
+    public int getMetricsPort() { return metricsPort; }
+    public void setMetricsPort(int metricsPort) { this.metricsPort = metricsPort; }
+
+    public int getTableSeats() { return tableSeats; }
+    public void setTableSeats(int tableSeats) { this.tableSeats = tableSeats; }
+
+    public long getTableBetWindowMs() { return tableBetWindowMs; }
+    public void setTableBetWindowMs(long tableBetWindowMs) { this.tableBetWindowMs = tableBetWindowMs; }
+
+    public long getTableDecisionMs() { return tableDecisionMs; }
+    public void setTableDecisionMs(long tableDecisionMs) { this.tableDecisionMs = tableDecisionMs; }
+
+    public String getJournal() { return journal; }
+    public void setJournal(String journal) { this.journal = journal; }
+
+    public long getJournalSegmentBytes() { return journalSegmentBytes; }
+    public void setJournalSegmentBytes(long journalSegmentBytes) { this.journalSegmentBytes = journalSegmentBytes; }
+
+    public long getJournalSyncMs() { return journalSyncMs; }
+    public void setJournalSyncMs(long journalSyncMs) { this.journalSyncMs = journalSyncMs; }
+
+    public int getJournalBuffer() { return journalBuffer; }
+    public void setJournalBuffer(int journalBuffer) { this.journalBuffer = journalBuffer; }
+
+    public long getSessionBankroll() { return sessionBankroll; }
+    public void setSessionBankroll(long sessionBankroll) { this.sessionBankroll = sessionBankroll; }
+
+    public long getSessionResumeMs() { return sessionResumeMs; }
+    public void setSessionResumeMs(long sessionResumeMs) { this.sessionResumeMs = sessionResumeMs; }
+
+    public String getSessionSnapshot() { return sessionSnapshot; }
+    public void setSessionSnapshot(String sessionSnapshot) { this.sessionSnapshot = sessionSnapshot; }
+
+    public long getSessionSnapshotMs() { return sessionSnapshotMs; }
+    public void setSessionSnapshotMs(long sessionSnapshotMs) { this.sessionSnapshotMs = sessionSnapshotMs; }
+
+    public long getSessionIdleTtlMs() { return sessionIdleTtlMs; }
+    public void setSessionIdleTtlMs(long sessionIdleTtlMs) { this.sessionIdleTtlMs = sessionIdleTtlMs; }
+
+    public int getAutoPlayMaxRounds() { return autoPlayMaxRounds; }
+    public void setAutoPlayMaxRounds(int autoPlayMaxRounds) { this.autoPlayMaxRounds = autoPlayMaxRounds; }
+
+    public int getAutoPlayReportEvery() { return autoPlayReportEvery; }
+    public void setAutoPlayReportEvery(int autoPlayReportEvery) { this.autoPlayReportEvery = autoPlayReportEvery; }
+
+    public int getWireBufferBytes() { return wireBufferBytes; }
+    public void setWireBufferBytes(int wireBufferBytes) { this.wireBufferBytes = wireBufferBytes; }
+
+    public int getWireResetEvery() { return wireResetEvery; }
+    public void setWireResetEvery(int wireResetEvery) { this.wireResetEvery = wireResetEvery; }
+
+    public int getWireQueueLimit() { return wireQueueLimit; }
+    public void setWireQueueLimit(int wireQueueLimit) { this.wireQueueLimit = wireQueueLimit; }
+
+    public long getWireWriteTimeoutMs() { return wireWriteTimeoutMs; }
+    public void setWireWriteTimeoutMs(long wireWriteTimeoutMs) { this.wireWriteTimeoutMs = wireWriteTimeoutMs; }
+
+    public String getWireSlowClient() { return wireSlowClient; }
+    public void setWireSlowClient(String wireSlowClient) { this.wireSlowClient = wireSlowClient; }
+
+    public String getStrategyTable() { return strategyTable; }
+    public void setStrategyTable(String strategyTable) { this.strategyTable = strategyTable; }
+
+    public boolean isStrategyHints() { return strategyHints; }
+    public void setStrategyHints(boolean strategyHints) { this.strategyHints = strategyHints; }
+
+    public int getDeckPool() { return deckPool; }
+    public void setDeckPool(int deckPool) { this.deckPool = deckPool; }
+
+    public int getDeckPoolThreads() { return deckPoolThreads; }
+    public void setDeckPoolThreads(int deckPoolThreads) { this.deckPoolThreads = deckPoolThreads; }
+
+    public String getDeckKeyFile() { return deckKeyFile; }
+    public void setDeckKeyFile(String deckKeyFile) { this.deckKeyFile = deckKeyFile; }
+
+    public long getStatsSampleMs() { return statsSampleMs; }
+    public void setStatsSampleMs(long statsSampleMs) { this.statsSampleMs = statsSampleMs; }
+
+    public long getStatsWindowMs() { return statsWindowMs; }
+    public void setStatsWindowMs(long statsWindowMs) { this.statsWindowMs = statsWindowMs; }
+
+    public double getStatsAlertZ() { return statsAlertZ; }
+    public void setStatsAlertZ(double statsAlertZ) { this.statsAlertZ = statsAlertZ; }
+
+    public long getStatsAlertMinHands() { return statsAlertMinHands; }
+    public void setStatsAlertMinHands(long statsAlertMinHands) { this.statsAlertMinHands = statsAlertMinHands; }
+
+    public String getPaytable() { return paytable; }
+    public void setPaytable(String paytable) { this.paytable = paytable; }
+
+    public long getPaytableReloadMs() { return paytableReloadMs; }
+    public void setPaytableReloadMs(long paytableReloadMs) { this.paytableReloadMs = paytableReloadMs; }
+
+    public double getPaytableMinReturn() { return paytableMinReturn; }
+    public void setPaytableMinReturn(double paytableMinReturn) { this.paytableMinReturn = paytableMinReturn; }
+
+    public double getPaytableMaxReturn() { return paytableMaxReturn; }
+    public void setPaytableMaxReturn(double paytableMaxReturn) { this.paytableMaxReturn = paytableMaxReturn; }
+}
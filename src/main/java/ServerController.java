@@ -1,5 +1,9 @@
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.text.Text;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
 
 public class ServerController {
     @FXML private TextField portField;
@@ -7,9 +11,14 @@ public class ServerController {
     @FXML private Button stopButton;
     @FXML private TextArea logTextArea;
     @FXML private Label clientCountLabel;
+    @FXML private Text serverStatusText;
+    @FXML private Text liveStatsText;
 
     private ProjectThreeServer mainApp;
 
+    private static final int MAX_LOG_LINES = 2000;
+    private final ArrayDeque<Integer> lineLengths = new ArrayDeque<>();
+
     public void initialize() {
         portField.setText("5555");
         stopButton.setDisable(true);
@@ -40,11 +49,41 @@ public class ServerController {
         this.mainApp = mainApp;
     }
 
+    public void setPort(int port) {
+        portField.setText(String.valueOf(port));
+    }
+
     public void logMessage(String message) {
-        logTextArea.appendText(message + "\n");
+        appendLog(Collections.singletonList(message));
+    }
+
+    // Appends a batch of lines, keeping only the newest MAX_LOG_LINES in the view
+    public void appendLog(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+            lineLengths.addLast(line.length() + 1);
+        }
+        logTextArea.appendText(text.toString());
+
+        int trim = 0;
+        while (lineLengths.size() > MAX_LOG_LINES) {
+            trim += lineLengths.removeFirst();
+        }
+        if (trim > 0) {
+            logTextArea.deleteText(0, trim);
+        }
     }
 
     public void updateClientCount(int count) {
         clientCountLabel.setText("Connected Clients: " + count);
     }
-}
\ No newline at end of file
+
+    public void updateStatus(String status) {
+        serverStatusText.setText(status);
+    }
+
+    public void updateLiveStats(String stats) {
+        liveStatsText.setText(stats);
+    }
+}
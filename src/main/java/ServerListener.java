@@ -0,0 +1,6 @@
+// Front end attached to a PokerServer, e.g. the JavaFX window.
+// Log output goes through LogSinks on the server's EventLog instead.
+public interface ServerListener {
+
+    void onClientCount(int count);
+}
@@ -0,0 +1,273 @@
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms for the live server, exported in the
+// Prometheus text format by MetricsHttpServer and summarized in the window.
+// Message types are indexed by MessageType code; 0 collects custom types.
+public class ServerMetrics {
+    private static final int TYPES = MessageType.values().length + 1;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    // Rough heap cost of an object pinned by a serialization handle table: the
+    // table slot plus a small PokerInfo, ArrayList or String
+    private static final int RETAINED_OBJECT_BYTES = 64;
+
+    private final LongAdder[] received = adders(TYPES);
+    private final LongAdder[] sent = adders(TYPES);
+    private final LatencyHistogram[] handleNanos = histograms(TYPES);
+    private final LatencyHistogram[] sendNanos = histograms(TYPES);
+    private final LatencyHistogram encodeNanos = new LatencyHistogram();
+    private final LatencyHistogram journalSyncNanos = new LatencyHistogram();
+    private final LatencyHistogram queueDepth = new LatencyHistogram();
+    private final LatencyHistogram flushMessages = new LatencyHistogram();
+    private final LatencyHistogram flushNanos = new LatencyHistogram();
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder connectionsAccepted = new LongAdder();
+    private final LongAdder roundsCompleted = new LongAdder();
+    private final LongAdder slowClientDisconnects = new LongAdder();
+    private final LongAdder writeTimeouts = new LongAdder();
+    private final LongAdder downgradedMessages = new LongAdder();
+    private final LongAdder journalDropped = new LongAdder();
+
+    private final Collection<ClientHandler> connections;
+    private final EventLog eventLog;
+    private final DeckPool deckPool; // null outside a server
+
+    // Previous sample for the rounds/sec figure in summary()
+    private long lastRounds;
+    private long lastSampleNanos = System.nanoTime();
+
+    public ServerMetrics(Collection<ClientHandler> connections, EventLog eventLog, DeckPool deckPool) {
+        this.connections = connections;
+        this.eventLog = eventLog;
+        this.deckPool = deckPool;
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static LatencyHistogram[] histograms(int n) {
+        LatencyHistogram[] histograms = new LatencyHistogram[n];
+        for (int i = 0; i < n; i++) histograms[i] = new LatencyHistogram();
+        return histograms;
+    }
+
+    private static int typeIndex(String messageType) {
+        MessageType type = MessageType.fromName(messageType);
+        return type == null ? 0 : type.ordinal() + 1;
+    }
+
+    private static String typeName(int index) {
+        return index == 0 ? "OTHER" : MessageType.values()[index - 1].name();
+    }
+
+    // Time from receiving a client message until its responses were written
+    public void recordHandled(String messageType, long nanos) {
+        int index = typeIndex(messageType);
+        received[index].increment();
+        handleNanos[index].record(nanos);
+    }
+
+    public void recordSent(String messageType, long nanos) {
+        int index = typeIndex(messageType);
+        sent[index].increment();
+        sendNanos[index].record(nanos);
+    }
+
+    public void recordEncode(long nanos) { encodeNanos.record(nanos); }
+    public void recordJournalSync(long nanos) { journalSyncNanos.record(nanos); }
+    public void journalRecordDropped() { journalDropped.increment(); }
+    public void addBytesIn(long bytes) { bytesIn.add(bytes); }
+    public void addBytesOut(long bytes) { bytesOut.add(bytes); }
+    public void connectionAccepted() { connectionsAccepted.increment(); }
+    public void roundCompleted() { roundsCompleted.increment(); }
+
+    // Outbound queues: depth as each message is queued, and each drain's size and time
+    public void recordQueueDepth(int depth) { queueDepth.record(depth); }
+    public void recordFlush(int messages, long nanos) {
+        flushMessages.record(messages);
+        flushNanos.record(nanos);
+    }
+    public void slowClientDisconnected() { slowClientDisconnects.increment(); }
+    public void writeTimedOut() { writeTimeouts.increment(); }
+    public void messageDowngraded() { downgradedMessages.increment(); }
+
+    public LatencyHistogram getQueueDepthHistogram() { return queueDepth; }
+
+    public long getRoundsCompleted() { return roundsCompleted.sum(); }
+
+    public long getConnectionBufferBytes() {
+        long bytes = 0;
+        for (ClientHandler connection : connections) {
+            PokerTransport transport = connection.getTransport();
+            if (transport != null) bytes += transport.getBufferedBytes();
+        }
+        return bytes;
+    }
+
+    public long getConnectionBacklog() {
+        long messages = 0;
+        for (ClientHandler connection : connections) {
+            PokerTransport transport = connection.getTransport();
+            if (transport != null) messages += transport.getBacklog();
+        }
+        return messages;
+    }
+
+    public long getConnectionRetainedObjects() {
+        long objects = 0;
+        for (ClientHandler connection : connections) {
+            PokerTransport transport = connection.getTransport();
+            if (transport != null) objects += transport.getRetainedObjects();
+        }
+        return objects;
+    }
+
+    // Estimated heap held for all connections
+    public long getConnectionMemory() {
+        return getConnectionBufferBytes() + getConnectionRetainedObjects() * RETAINED_OBJECT_BYTES;
+    }
+
+    public LatencyHistogram getHandleHistogram(MessageType type) {
+        return handleNanos[type.ordinal() + 1];
+    }
+
+    // One line for the server window; call from a single thread
+    public synchronized String summary() {
+        long now = System.nanoTime();
+        long rounds = roundsCompleted.sum();
+        double seconds = Math.max(1e-9, (now - lastSampleNanos) / 1e9);
+        double roundsPerSecond = (rounds - lastRounds) / seconds;
+        lastRounds = rounds;
+        lastSampleNanos = now;
+
+        int clients = connections.size();
+        return String.format("%.1f rounds/s | deal p99 %.2f ms | result p99 %.2f ms | in %,d KB | out %,d KB"
+                        + " | conn mem %,d KB (%,d B/client) | out queue p99 %d",
+                roundsPerSecond,
+                getHandleHistogram(MessageType.PLACE_BETS).valueAtQuantile(0.99) / 1e6,
+                getHandleHistogram(MessageType.CONTINUE).valueAtQuantile(0.99) / 1e6,
+                bytesIn.sum() / 1024, bytesOut.sum() / 1024,
+                getConnectionMemory() / 1024, clients == 0 ? 0 : getConnectionMemory() / clients,
+                queueDepth.valueAtQuantile(0.99));
+    }
+
+    public void writePrometheus(StringBuilder out) {
+        header(out, "poker_messages_received_total", "counter", "Messages received from clients");
+        for (int i = 0; i < TYPES; i++) {
+            if (received[i].sum() > 0) sample(out, "poker_messages_received_total", "type", typeName(i), received[i].sum());
+        }
+        header(out, "poker_messages_sent_total", "counter", "Messages sent to clients");
+        for (int i = 0; i < TYPES; i++) {
+            if (sent[i].sum() > 0) sample(out, "poker_messages_sent_total", "type", typeName(i), sent[i].sum());
+        }
+
+        header(out, "poker_handle_seconds", "summary", "Time to handle a client message, including the replies it sends");
+        for (int i = 0; i < TYPES; i++) {
+            summary(out, "poker_handle_seconds", "type", typeName(i), handleNanos[i]);
+        }
+        header(out, "poker_send_seconds", "summary", "Time to queue one message for a client");
+        for (int i = 0; i < TYPES; i++) {
+            summary(out, "poker_send_seconds", "type", typeName(i), sendNanos[i]);
+        }
+        header(out, "poker_encode_seconds", "summary", "Time to encode one message where encoding is separate from the write");
+        summary(out, "poker_encode_seconds", null, null, encodeNanos);
+
+        header(out, "poker_outbound_queue_depth", "summary", "Messages waiting for a client, including the one just queued");
+        quantiles(out, "poker_outbound_queue_depth", queueDepth);
+        header(out, "poker_outbound_flush_messages", "summary", "Messages written per socket flush or gathering write");
+        quantiles(out, "poker_outbound_flush_messages", flushMessages);
+        header(out, "poker_outbound_flush_seconds", "summary", "Time to write and flush one batch of messages");
+        summary(out, "poker_outbound_flush_seconds", null, null, flushNanos);
+        header(out, "poker_outbound_backlog_messages", "gauge", "Messages waiting for all connected clients");
+        sample(out, "poker_outbound_backlog_messages", null, null, getConnectionBacklog());
+        header(out, "poker_slow_client_disconnects_total", "counter", "Clients dropped for a full outbound queue");
+        sample(out, "poker_slow_client_disconnects_total", null, null, slowClientDisconnects.sum());
+        header(out, "poker_write_timeouts_total", "counter", "Clients dropped for output stuck longer than wire.writeTimeoutMs");
+        sample(out, "poker_write_timeouts_total", null, null, writeTimeouts.sum());
+        header(out, "poker_downgraded_messages_total", "counter", "AUTO_PLAY results and progress reports skipped for backlogged clients");
+        sample(out, "poker_downgraded_messages_total", null, null, downgradedMessages.sum());
+
+        header(out, "poker_journal_sync_seconds", "summary", "Time to force one group commit of the hand journal");
+        summary(out, "poker_journal_sync_seconds", null, null, journalSyncNanos);
+        header(out, "poker_journal_dropped_total", "counter", "Settled hands not journaled because the journal was stopped");
+        sample(out, "poker_journal_dropped_total", null, null, journalDropped.sum());
+
+        header(out, "poker_bytes_received_total", "counter", "Bytes read from client sockets");
+        sample(out, "poker_bytes_received_total", null, null, bytesIn.sum());
+        header(out, "poker_bytes_sent_total", "counter", "Bytes written to client sockets");
+        sample(out, "poker_bytes_sent_total", null, null, bytesOut.sum());
+        header(out, "poker_connections_active", "gauge", "Connected clients");
+        sample(out, "poker_connections_active", null, null, connections.size());
+        header(out, "poker_connection_buffer_bytes", "gauge", "Stream buffers and queued output held for connected clients");
+        sample(out, "poker_connection_buffer_bytes", null, null, getConnectionBufferBytes());
+        header(out, "poker_connection_retained_objects", "gauge", "Objects kept alive by serialization handle tables until the next reset");
+        sample(out, "poker_connection_retained_objects", null, null, getConnectionRetainedObjects());
+        header(out, "poker_connections_accepted_total", "counter", "Connections accepted since start");
+        sample(out, "poker_connections_accepted_total", null, null, connectionsAccepted.sum());
+        header(out, "poker_rounds_total", "counter", "Rounds settled (results sent or folded)");
+        sample(out, "poker_rounds_total", null, null, roundsCompleted.sum());
+        header(out, "poker_log_events_dropped_total", "counter", "Log events dropped because the log buffer was full");
+        sample(out, "poker_log_events_dropped_total", null, null, eventLog.getDroppedCount());
+
+        if (deckPool != null) {
+            header(out, "poker_deck_pool_depth", "gauge", "Shuffled decks ready to deal");
+            sample(out, "poker_deck_pool_depth", null, null, deckPool.getDepth());
+            header(out, "poker_deck_pool_capacity", "gauge", "Most shuffled decks kept ready");
+            sample(out, "poker_deck_pool_capacity", null, null, deckPool.getCapacity());
+            header(out, "poker_deck_pool_shuffled_total", "counter", "Decks shuffled by the pool; its rate is the refill rate");
+            sample(out, "poker_deck_pool_shuffled_total", null, null, deckPool.getShuffledCount());
+            header(out, "poker_deck_pool_misses_total", "counter", "Deals that found the pool empty and shuffled inline");
+            sample(out, "poker_deck_pool_misses_total", null, null, deckPool.getMissCount());
+        }
+    }
+
+    static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    static void sample(StringBuilder out, String name, String label, String value, double sample) {
+        out.append(name);
+        if (label != null) out.append('{').append(label).append("=\"").append(value).append("\"}");
+        out.append(' ').append(sample).append('\n');
+    }
+
+    static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        out.append(name);
+        if (label != null) out.append('{').append(label).append("=\"").append(value).append("\"}");
+        out.append(' ').append(sample).append('\n');
+    }
+
+    // Histogram of plain counts as a Prometheus summary
+    static void quantiles(StringBuilder out, String name, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0) return;
+        for (double quantile : QUANTILES) {
+            out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.valueAtQuantile(quantile)).append('\n');
+        }
+        out.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+        out.append(name).append("_count ").append(count).append('\n');
+    }
+
+    // Nanosecond histogram as a Prometheus summary in seconds
+    static void summary(StringBuilder out, String name, String label, String value, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0) return;
+        String labels = label == null ? "" : label + "=\"" + value + "\",";
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.valueAtQuantile(quantile) / 1e9).append('\n');
+        }
+        String plain = label == null ? "" : "{" + label + "=\"" + value + "\"}";
+        out.append(name).append("_sum").append(plain).append(' ')
+                .append(histogram.getSum() / (double) TimeUnit.SECONDS.toNanos(1)).append('\n');
+        out.append(name).append("_count").append(plain).append(' ').append(count).append('\n');
+    }
+}
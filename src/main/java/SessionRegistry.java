@@ -0,0 +1,264 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Player sessions by id and resume token. Creating a session is an atomic
+// increment, so the accept loop never waits on a reconnect storm; tokens are
+// only generated when a client asks to be resumable (RESUME) and that work
+// happens on the client's own connection thread.
+//
+// Resumable sessions and the next id are snapshotted to disk periodically and
+// on shutdown (written to a temp file, then renamed), so balances and ids
+// survive a restart. With a HandJournal the snapshot records the last sequence
+// committed when it started, and each balance the sequence of its player's last
+// record written and how many hands it holds whose records were not written
+// yet. On start the player's hands journaled after its sequence, less those
+// counted, are applied again, so a crash loses no settled hand the journal kept.
+// The journal writer only notes sequences; snapshots run on their own thread.
+//
+// A resumable session disconnected for session.idleTtlMs is forgotten at the
+// next snapshot, so neither the registry nor the file grows with every player
+// who ever connected.
+public class SessionRegistry implements HandJournal.Listener {
+    private static final int MAGIC = 0x50335333; // "P3S3"
+    private static final int V2_MAGIC = 0x50335332; // "P3S2", no per-session journal position
+    private static final int OLD_MAGIC = 0x50335331; // "P3S1", no journal position
+
+    private final ConcurrentHashMap<String, PlayerSession> byToken = new ConcurrentHashMap<>();
+    // Live and resumable sessions, so the journal writer can count their records
+    private final ConcurrentHashMap<Integer, PlayerSession> byId = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final long startingBankroll;
+    private final Path snapshot;
+    private final long idleTtlMillis;
+    private final SecureRandom random = new SecureRandom();
+    private ScheduledExecutorService snapshotter;
+
+    // Journal position of the loaded snapshot, -1 when unknown, and by player id
+    // the sequence of its last journaled hand and its unjournaled hands
+    private long snapshotSequence = -1;
+    private final Map<Integer, Long> journaledAtSnapshot = new HashMap<>();
+    private final Map<Integer, Long> unjournaledAtSnapshot = new HashMap<>();
+
+    private volatile long committedSequence = -1; // -1 without a journal
+
+    // snapshot may be null to keep sessions in memory only
+    public SessionRegistry(long startingBankroll, Path snapshot) throws IOException {
+        this(startingBankroll, snapshot, 0);
+    }
+
+    public SessionRegistry(long startingBankroll, Path snapshot, long idleTtlMillis) throws IOException {
+        this.startingBankroll = startingBankroll;
+        this.snapshot = snapshot;
+        this.idleTtlMillis = idleTtlMillis;
+        if (snapshot != null && Files.exists(snapshot)) {
+            load();
+        }
+    }
+
+    public PlayerSession create() {
+        PlayerSession session = new PlayerSession(lastId.incrementAndGet(), startingBankroll);
+        byId.put(session.getId(), session);
+        return session;
+    }
+
+    // A session that is not resumable is done with once its connection goes
+    public void remove(PlayerSession session) {
+        if (session.getToken() == null) byId.remove(session.getId());
+    }
+
+    // Applies the hands journaled after the loaded snapshot to the restored balances; returns how many.
+    // Call before the journal takes its first record.
+    public long recover(Path journalDir) throws IOException {
+        if (snapshotSequence < 0) return 0;
+        long applied = 0;
+        try (HandJournal.Reader reader = HandJournal.read(journalDir, snapshotSequence + 1)) {
+            while (reader.hasNext()) {
+                HandRecord record = reader.next();
+                if (record.sequence <= snapshotSequence) continue;
+                committedSequence = Math.max(committedSequence, record.sequence); // now in the balances
+                lastId.accumulateAndGet(record.playerId, Math::max); // ids handed out after the snapshot
+                PlayerSession session = byId.get(record.playerId);
+                if (session == null) continue;
+                // Written before the snapshot read this balance
+                if (record.sequence <= journaledAtSnapshot.getOrDefault(record.playerId, snapshotSequence)) continue;
+                long unjournaled = unjournaledAtSnapshot.getOrDefault(record.playerId, 0L);
+                if (unjournaled > 0) {
+                    // Already in the snapshot's balance
+                    unjournaledAtSnapshot.put(record.playerId, unjournaled - 1);
+                    continue;
+                }
+                session.adjustBankroll(record.totalWinnings);
+                applied++;
+            }
+        }
+        journaledAtSnapshot.clear();
+        unjournaledAtSnapshot.clear();
+        return applied;
+    }
+
+    // Makes the session resumable; returns its token
+    public String issueToken(PlayerSession session) {
+        synchronized (session) {
+            if (session.getToken() == null) {
+                byte[] bytes = new byte[16];
+                random.nextBytes(bytes);
+                StringBuilder token = new StringBuilder(32);
+                for (byte b : bytes) {
+                    token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                session.setToken(token.toString());
+                byToken.put(session.getToken(), session);
+                byId.put(session.getId(), session);
+            }
+            return session.getToken();
+        }
+    }
+
+    // null for an unknown token
+    public PlayerSession find(String token) {
+        return token == null ? null : byToken.get(token);
+    }
+
+    public int size() {
+        return byToken.size();
+    }
+
+    public int getParkedCount() {
+        int parked = 0;
+        for (PlayerSession session : byToken.values()) {
+            if (session.isParked()) parked++;
+        }
+        return parked;
+    }
+
+    // With a journal the registry also follows the sequences it writes; failures go to log
+    public void startSnapshots(long intervalMillis, HandJournal journal, Consumer<String> log) {
+        if (snapshot == null || snapshotter != null) return;
+        if (journal != null) journal.setListener(this);
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot();
+            } catch (IOException | RuntimeException e) {
+                log.accept("Session snapshot failed: " + e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void written(HandRecord record, long sequence) {
+        PlayerSession session = byId.get(record.playerId);
+        if (session != null) session.journaled(sequence);
+    }
+
+    @Override
+    public void committed(long lastSequence) {
+        committedSequence = lastSequence;
+    }
+
+    // Stops the periodic snapshots and writes a final one; the journal, if any, is closed first
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (snapshot != null) {
+            writeSnapshot();
+        }
+    }
+
+    // Records written after committedSequence is read carry a later sequence than
+    // any balance read below has seen, so recover() can start reading there
+    public synchronized void writeSnapshot() throws IOException {
+        long sequence = committedSequence;
+        evictIdle(System.currentTimeMillis());
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(lastId.get());
+            out.writeLong(sequence);
+            int count = byToken.size();
+            out.writeInt(count);
+            Iterator<PlayerSession> sessions = byToken.values().iterator();
+            for (int i = 0; i < count; i++) {
+                // Only evictIdle removes entries, so there are at least count of them
+                PlayerSession session = sessions.next();
+                long bankroll, unjournaled, journaled;
+                synchronized (session) {
+                    bankroll = session.getBankroll();
+                    unjournaled = session.unjournaledHands();
+                    journaled = session.getJournaledSequence();
+                }
+                out.writeUTF(session.getToken());
+                out.writeInt(session.getId());
+                out.writeLong(bankroll);
+                out.writeLong(unjournaled);
+                out.writeLong(journaled);
+                out.writeLong(session.getLastSeenMillis());
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Disconnected and unseated, i.e. the seat hold ran out, for longer than the TTL
+    private void evictIdle(long now) {
+        if (idleTtlMillis <= 0) return;
+        for (PlayerSession session : byToken.values()) {
+            if (session.isParked() && session.getTable() == null
+                    && now - session.getLastSeenMillis() > idleTtlMillis) {
+                byToken.remove(session.getToken());
+                byId.remove(session.getId());
+            }
+        }
+    }
+
+    // Restored sessions come back parked and without a seat
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != V2_MAGIC && magic != OLD_MAGIC) {
+                throw new IOException("Not a session snapshot: " + snapshot);
+            }
+            lastId.set(in.readInt());
+            if (magic != OLD_MAGIC) snapshotSequence = in.readLong();
+            committedSequence = snapshotSequence;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String token = in.readUTF();
+                PlayerSession session = new PlayerSession(in.readInt(), in.readLong());
+                if (magic != OLD_MAGIC) {
+                    unjournaledAtSnapshot.put(session.getId(), in.readLong());
+                    if (magic == MAGIC) journaledAtSnapshot.put(session.getId(), in.readLong());
+                    session.setLastSeenMillis(in.readLong());
+                }
+                session.setToken(token);
+                byToken.put(token, session);
+                byId.put(session.getId(), session);
+            }
+        }
+    }
+}
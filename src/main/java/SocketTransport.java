@@ -0,0 +1,264 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.Socket;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Blocking socket connection. Speaks Java serialization, as the original client
+// does, or the binary WireCodec when the client asks for it (see WireCodec).
+//
+// send() only queues the message, so a slow client never holds up a table or an
+// AUTO_PLAY batch. A writer task on the server's wire-writer pool drains the queue
+// and flushes once per drain, however many messages it wrote. A backlog of
+// wire.queueLimit messages fails the send, and PokerServer closes connections
+// whose writer has been stuck in one write for wire.writeTimeoutMs.
+public class SocketTransport implements PokerTransport {
+    // Only the message classes may be deserialized from a client
+    static final ObjectInputFilter WIRE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=10;PokerInfo;Card;Suit;java.util.ArrayList;java.lang.*;!*");
+
+    private final Socket socket;
+    private final ServerMetrics metrics;
+    private final TrackingObjectOutputStream out;
+    private ObjectInputStream in;          // legacy mode
+    private InputStream binaryIn;          // binary mode
+    private OutputStream binaryOut;
+    private final boolean binary;
+    private final int bufferBytes;
+    private final int resetEvery;
+    private int sinceReset; // writer only
+
+    private final RingBuffer<PokerInfo> outbound;
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final int queueLimit;
+    private final Executor writers;
+    private final Consumer<IOException> onWriteFailure;
+    private volatile long writeStarted; // nanoTime while the writer is in a write, else 0
+    private volatile boolean closed;
+
+    public SocketTransport(Socket socket, ServerConfig config, ServerMetrics metrics, Executor writers,
+                           Consumer<IOException> onWriteFailure) throws IOException {
+        this.socket = socket;
+        this.metrics = metrics;
+        this.bufferBytes = config.getWireBufferBytes();
+        this.resetEvery = config.getWireResetEvery();
+        this.queueLimit = Math.max(1, config.getWireQueueLimit());
+        this.outbound = new RingBuffer<>(queueLimit);
+        this.writers = writers;
+        this.onWriteFailure = onWriteFailure;
+        // One socket write per message, so TCP_NODELAY costs no extra packets
+        OutputStream socketOut = new BufferedOutputStream(
+                new CountingOutputStream(socket.getOutputStream(), metrics), bufferBytes);
+        // Greeting every client gets: the serialization stream header
+        this.out = new TrackingObjectOutputStream(socketOut);
+        out.flush();
+
+        PushbackInputStream input = new PushbackInputStream(new CountingInputStream(socket.getInputStream(), metrics), 4);
+        byte[] hello = new byte[4];
+        int read = 0;
+        while (read < hello.length) {
+            int n = input.read(hello, read, hello.length - read);
+            if (n < 0) throw new EOFException("Client closed during handshake");
+            read += n;
+        }
+
+        int version = WireCodec.helloVersion(hello, 0);
+        this.binary = version >= 1;
+        if (binary) {
+            socketOut.write(WireCodec.hello(Math.min(version, WireCodec.VERSION)));
+            socketOut.flush();
+            binaryIn = new BufferedInputStream(input, bufferBytes);
+            binaryOut = socketOut;
+        } else {
+            input.unread(hello);
+            in = new ObjectInputStream(new BufferedInputStream(input, bufferBytes));
+            in.setObjectInputFilter(WIRE_FILTER);
+        }
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public PokerInfo receive() throws IOException, ClassNotFoundException {
+        if (binary) {
+            return WireCodec.readFrame(binaryIn);
+        }
+        return (PokerInfo) in.readObject();
+    }
+
+    // Tables and AUTO_PLAY batches send from their own threads; fails only when the backlog is full
+    @Override
+    public void send(PokerInfo info) throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        int depth = backlog.incrementAndGet();
+        if (depth > queueLimit) {
+            backlog.decrementAndGet();
+            metrics.slowClientDisconnected();
+            throw new IOException("Client is " + queueLimit + " messages behind");
+        }
+        metrics.recordQueueDepth(depth);
+        outbound.offer(info); // the backlog limit keeps the ring from filling
+        if (draining.compareAndSet(false, true)) {
+            writers.execute(this::drain);
+        }
+    }
+
+    // Writer task: everything queued goes out with one flush. A message queued after the
+    // last poll but before draining is cleared would be missed, hence the second check.
+    private void drain() {
+        try {
+            do {
+                int written = 0;
+                writeStarted = System.nanoTime();
+                PokerInfo info;
+                while ((info = outbound.poll()) != null) {
+                    write(info);
+                    backlog.decrementAndGet();
+                    written++;
+                }
+                if (binary) binaryOut.flush(); else out.flush();
+                metrics.recordFlush(written, System.nanoTime() - writeStarted);
+                writeStarted = 0;
+                draining.set(false);
+            } while (outbound.size() > 0 && draining.compareAndSet(false, true));
+        } catch (IOException | RuntimeException e) {
+            writeStarted = 0;
+            if (!closed) {
+                onWriteFailure.accept(e instanceof IOException ? (IOException) e : new IOException(e));
+            }
+        }
+    }
+
+    private void write(PokerInfo info) throws IOException {
+        if (binary) {
+            long start = System.nanoTime();
+            byte[] frame = WireCodec.encodeFrame(info);
+            metrics.recordEncode(System.nanoTime() - start);
+            binaryOut.write(frame);
+            return;
+        }
+        out.writeObject(info);
+        // Until a reset the handle table keeps every object sent alive, and an object
+        // sent again goes as a reference to the first copy
+        if (resetEvery > 0 && ++sinceReset >= resetEvery) {
+            out.reset();
+            sinceReset = 0;
+        }
+    }
+
+    @Override
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    @Override
+    public long getWriteStallNanos(long now) {
+        long started = writeStarted;
+        return started == 0 ? 0 : now - started;
+    }
+
+    // Input and output buffers. Objects a legacy client's own stream keeps alive on
+    // our side are not counted; they are released whenever the client resets.
+    @Override
+    public long getBufferedBytes() {
+        return 2L * bufferBytes;
+    }
+
+    // Queued messages are held too
+    @Override
+    public int getRetainedObjects() {
+        return out.retained + backlog.get();
+    }
+
+    // Only the socket: closing it fails a writer blocked on a stalled client, where
+    // closing the streams would wait behind that write
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+    }
+
+    // Counts the objects in the stream's handle table
+    private static class TrackingObjectOutputStream extends ObjectOutputStream {
+        volatile int retained; // written by one writer at a time
+
+        TrackingObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        // Only called for objects the handle table does not hold yet
+        @Override
+        protected Object replaceObject(Object obj) {
+            retained++;
+            return obj;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            retained = 0;
+        }
+    }
+
+    // Byte counters for ServerMetrics, below any buffering so they see socket traffic
+    private static class CountingInputStream extends FilterInputStream {
+        private final ServerMetrics metrics;
+
+        CountingInputStream(InputStream in, ServerMetrics metrics) {
+            super(in);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) metrics.addBytesIn(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) metrics.addBytesIn(n);
+            return n;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final ServerMetrics metrics;
+
+        CountingOutputStream(OutputStream out, ServerMetrics metrics) {
+            super(out);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            metrics.addBytesOut(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            metrics.addBytesOut(len);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// How playing each of the 22,100 player hands ends against every dealer hand left
+// in the deck: wins, losses, ties and dealer hands that do not qualify. The counts
+// depend only on ThreeCardLogic's ranking, so the exact expected value of playing
+// under any Paytable is a few reads at ThreeCardLogic.handIndex, and a paytable's
+// whole return is one pass over the hands (see HouseEdgeSimulator.exact).
+// Counted in parallel by HouseEdgeSimulator on first start, written to a file and
+// memory-mapped from then on.
+//
+// File: int MAGIC, int hand count, int rules fingerprint, int reserved, then four
+// little-endian ints per hand in the order of the outcome constants. A file built
+// under other ranking or qualification rules is rebuilt.
+//
+//   java StrategyTable [file]     build the file ahead of time
+public class StrategyTable {
+    private static final int MAGIC = 0x50334532; // "P3E2"
+    private static final int HEADER = 16;
+
+    // Outcomes, in file order
+    public static final int WINS = 0;
+    public static final int LOSSES = 1;
+    public static final int TIES = 2;
+    public static final int NOT_QUALIFIED = 3;
+    static final int OUTCOMES = 4;
+
+    // Folding forfeits the ante
+    public static final double FOLD = -1;
+
+    private final ByteBuffer counts;
+
+    private StrategyTable(ByteBuffer counts) {
+        this.counts = counts.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Maps the file, building or rebuilding it first when needed
+    public static StrategyTable open(Path file) throws IOException {
+        int fingerprint = rulesFingerprint();
+        if (!isCurrent(file, fingerprint)) {
+            write(file, HouseEdgeSimulator.outcomeCounts(), fingerprint);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new StrategyTable(mapped);
+        }
+    }
+
+    // Counted now and kept in memory only, for strategy.table=none
+    public static StrategyTable compute() {
+        return new StrategyTable(encode(HouseEdgeSimulator.outcomeCounts(), rulesFingerprint()));
+    }
+
+    public static StrategyTable open(ServerConfig config) throws IOException {
+        if (config.getStrategyTable().equals("none")) return compute();
+        return open(Paths.get(config.getStrategyTable()));
+    }
+
+    public int count(int handIndex, int outcome) {
+        return counts.getInt(HEADER + 4 * (OUTCOMES * handIndex + outcome));
+    }
+
+    // Net result of playing under this paytable, per unit of ante, Pair Plus excluded
+    public double playExpectation(Paytable paytable, int c0, int c1, int c2) {
+        int index = ThreeCardLogic.handIndex(c0, c1, c2);
+        long returned = (long) count(index, WINS) * paytable.winReturn()
+                + (long) count(index, TIES) * paytable.pushReturn()
+                + (long) count(index, NOT_QUALIFIED) * paytable.notQualifiedReturn();
+        return returned / (double) HouseEdgeSimulator.DEALER_HANDS
+                + paytable.anteBonus(ThreeCardLogic.evalHand(c0, c1, c2), 1) - 2;
+    }
+
+    // Expected dollars gained by PLAY over FOLD for these bets. Folding also gives
+    // up the Pair Plus bet, so a Pair Plus win only ever argues for playing.
+    public double playAdvantage(Paytable paytable, int c0, int c1, int c2, int ante, int pairPlus) {
+        return ante * (playExpectation(paytable, c0, c1, c2) - FOLD)
+                + paytable.pairPlusWinnings(ThreeCardLogic.evalHand(c0, c1, c2), pairPlus);
+    }
+
+    // playAdvantage in whole cents, as sent with DEAL_CARDS and journaled
+    public int playAdvantageCents(Paytable paytable, int[] cards, int ante, int pairPlus) {
+        return (int) Math.round(100 * playAdvantage(paytable, cards[0], cards[1], cards[2], ante, pairPlus));
+    }
+
+    private static boolean isCurrent(Path file, int fingerprint) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER + 4L * OUTCOMES * ThreeCardLogic.HAND_COUNT) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) return false;
+            }
+            return header.getInt(0) == MAGIC && header.getInt(4) == ThreeCardLogic.HAND_COUNT
+                    && header.getInt(8) == fingerprint;
+        }
+    }
+
+    private static ByteBuffer encode(int[] outcomeCounts, int fingerprint) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 4 * outcomeCounts.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(outcomeCounts.length / OUTCOMES).putInt(fingerprint).putInt(0);
+        for (int count : outcomeCounts) {
+            buffer.putInt(count);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Written to a temp file and renamed, so a crash never leaves half a table
+    private static void write(Path file, int[] outcomeCounts, int fingerprint) throws IOException {
+        ByteBuffer buffer = encode(outcomeCounts, fingerprint);
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Changes whenever hand ranking or dealer qualification changes; payouts do not matter
+    static int rulesFingerprint() {
+        CRC32 crc = new CRC32();
+        ByteBuffer hand = ByteBuffer.allocate(8);
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    int key = ThreeCardLogic.handKey(a, b, c);
+                    hand.clear();
+                    hand.putInt(key).putInt(ThreeCardLogic.qualifies(key) ? 1 : 0);
+                    crc.update(hand.array());
+                }
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "strategy.table");
+        long start = System.nanoTime();
+        StrategyTable table = open(file);
+        System.out.printf("%s: %,d hands, ready in %.2f s%n", file, ThreeCardLogic.HAND_COUNT,
+                (System.nanoTime() - start) / 1e9);
+        System.out.print(HouseEdgeSimulator.exact(Paytable.STANDARD, table));
+    }
+}
@@ -0,0 +1,506 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+// A table of up to N seats sharing one deck and one dealer hand per round.
+//
+// Betting: the round is dealt as soon as every seated player has bet, or when
+// the bet window closes after the first bet. Seats that bet while a round is in
+// play are dealt into the next one. Bets outside the limits, more than the
+// bankroll covers, or made while the seat's own hand is undecided, are refused
+// with a PLACE_BETS reply carrying the reason.
+// Deciding: players PLAY or FOLD; whoever has not decided by the decision
+// deadline is folded. Once everyone has decided the dealer hand is evaluated
+// once and every playing seat is settled in a single pass; each seat receives
+// SHOW_DEALER and collects its GAME_RESULT with CONTINUE, as with the old
+// one-player games; betting again without a CONTINUE collects it first.
+//
+// State changes happen under the table lock; replies and hand records are
+// queued and sent or journaled after it is released, in order, so neither a
+// slow client nor a full journal holds the table.
+public class Table {
+    // Seat states
+    private static final int EMPTY = 0;
+    private static final int WAITING = 1;  // seated, no bet yet
+    private static final int BET = 2;      // bet placed, waiting for the deal
+    private static final int DEALT = 3;    // waiting for PLAY or FOLD
+    private static final int PLAYED = 4;   // waiting for the other seats
+    private static final int SETTLED = 5;  // result waiting for CONTINUE
+    private static final int AUTO = 6;     // sitting out while an AutoPlay batch runs
+
+    private final int id;
+    private final PokerServer server;
+    private final ScheduledExecutorService scheduler;
+    private final byte[] order = new byte[52];
+    private final long betWindowMillis;
+    private final long decisionMillis;
+    private final StrategyTable strategy;
+    private final boolean hints;
+
+    private final PlayerSession[] sessions;
+    private final int[] states;
+    private final boolean[] leaving; // released once the hand in play settles
+    private final PokerGame[] games;
+    private final PokerInfo[] results;
+
+    private boolean inPlay;
+    private int round;
+    private long deal; // number of the order in play, see DeckPool
+    private ScheduledFuture<?> deadline;
+    private final int[] dealerCards = new int[3];
+    private final int[][] seatCards;
+
+    // Replies produced under the lock, sent by flush()
+    private final List<ClientHandler> outboxTo = new ArrayList<>();
+    private final List<PokerInfo> outbox = new ArrayList<>();
+    // Hand history produced under the lock, appended by flush(); a full journal must not stall the table
+    private final List<HandRecord> journalOut = new ArrayList<>();
+    private final Object sendLock = new Object();
+
+    public Table(int id, PokerServer server, ScheduledExecutorService scheduler) {
+        ServerConfig config = server.getConfig();
+        this.id = id;
+        this.server = server;
+        this.scheduler = scheduler;
+        this.betWindowMillis = config.getTableBetWindowMs();
+        this.decisionMillis = config.getTableDecisionMs();
+        this.strategy = server.getStrategy();
+        this.hints = config.isStrategyHints();
+
+        int seats = config.getTableSeats();
+        sessions = new PlayerSession[seats];
+        states = new int[seats];
+        leaving = new boolean[seats];
+        games = new PokerGame[seats];
+        results = new PokerInfo[seats];
+        seatCards = new int[seats][3];
+        for (int i = 0; i < seats; i++) {
+            games[i] = new PokerGame(null);
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // Seat index for the new player, or -1 when the table is full
+    public synchronized int join(PlayerSession session) {
+        for (int seat = 0; seat < sessions.length; seat++) {
+            if (states[seat] == EMPTY) {
+                sessions[seat] = session;
+                states[seat] = WAITING;
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    // Gives the seat up. A dealt hand is folded; a played hand keeps the seat
+    // until the round settles, so its result is still paid and recorded.
+    public void leave(int seat) {
+        synchronized (this) {
+            switch (states[seat]) {
+                case DEALT:
+                    foldSeat(seat);
+                    free(seat);
+                    resolveIfDecided();
+                    break;
+                case PLAYED:
+                    leaving[seat] = true;
+                    break;
+                default:
+                    free(seat);
+                    if (!inPlay) {
+                        dealIfAllBet();
+                    }
+            }
+        }
+        flush();
+    }
+
+    // The player's connection dropped but the session may come back. The seat and
+    // any hand in play are kept; an idle parked seat no longer holds up the deal.
+    public void park(int seat) {
+        synchronized (this) {
+            if (!inPlay) {
+                dealIfAllBet();
+            }
+        }
+        flush();
+    }
+
+    // A parked player is back on a new connection: repeat what they missed
+    public void resume(int seat) {
+        synchronized (this) {
+            if (states[seat] == DEALT) {
+                reply(seat, dealCards(seat));
+            } else if (states[seat] == SETTLED) {
+                PokerGame game = games[seat];
+                int[] dealer = game.getDealerCards();
+                reply(seat, showDealer(seat, dealerMessage(ThreeCardLogic.handKey(dealer[0], dealer[1], dealer[2]))));
+            }
+        }
+        flush();
+    }
+
+    // A resumed session takes over the seat its new connection was given
+    public synchronized void replaceSession(int seat, PlayerSession session) {
+        sessions[seat] = session;
+    }
+
+    private void free(int seat) {
+        sessions[seat] = null;
+        states[seat] = EMPTY;
+        results[seat] = null;
+        leaving[seat] = false;
+    }
+
+    // Takes an idle seat out of table rounds for an AutoPlay batch
+    public synchronized boolean startAutoPlay(int seat) {
+        if (states[seat] != WAITING) return false;
+        states[seat] = AUTO;
+        return true;
+    }
+
+    public void endAutoPlay(int seat) {
+        synchronized (this) {
+            if (states[seat] != AUTO) return; // left meanwhile
+            states[seat] = WAITING;
+            if (!inPlay) {
+                dealIfAllBet();
+            }
+        }
+        flush();
+    }
+
+    // Why a round's bets are refused, or null; the same rules hold for table rounds and AUTO_PLAY.
+    // The play bet equals the ante, so the bankroll has to cover the ante twice and both side bets.
+    static String betRefusal(int ante, int pairPlus, int sixCard, long bankroll) {
+        if (ante <= 0 || pairPlus < 0 || sixCard < 0) return "Invalid bets";
+        if (sixCard > HandRecord.MAX_SIX_CARD_BET) {
+            return "6 Card Bonus is limited to $" + HandRecord.MAX_SIX_CARD_BET;
+        }
+        if (2L * ante + pairPlus + sixCard > bankroll) return "Bets exceed the bankroll";
+        return null;
+    }
+
+    // Bets on a settled seat first hand over the result the player did not CONTINUE for;
+    // bets while the seat's hand or an AUTO_PLAY batch is still running are refused
+    public void placeBet(int seat, int ante, int pairPlus, int sixCard) {
+        synchronized (this) {
+            int state = states[seat];
+            String refusal = betRefusal(ante, pairPlus, sixCard, sessions[seat].getBankroll());
+            if (refusal == null && state != WAITING && state != SETTLED && state != BET) {
+                refusal = state == AUTO ? "Auto-play in progress" : "Finish the current round first";
+            }
+            if (refusal != null) {
+                server.logGameEvent("Client #" + sessions[seat].getId() + " bets refused (" + refusal + "): Ante $"
+                        + ante + ", Pair Plus $" + pairPlus + ", 6 Card Bonus $" + sixCard);
+                PokerInfo refused = new PokerInfo("PLACE_BETS");
+                refused.setSuccess(false);
+                refused.setGameMessage(refusal);
+                refused.setBankroll(PlayerSession.toWire(sessions[seat].getBankroll()));
+                reply(seat, refused);
+            } else {
+                if (state == SETTLED) deliverResult(seat);
+                games[seat].placeBets(ante, pairPlus, sixCard);
+                states[seat] = BET;
+                server.logGameEvent("Client #" + sessions[seat].getId() + " placed bets: Ante $" + ante
+                        + ", Pair Plus $" + pairPlus + (sixCard > 0 ? ", 6 Card Bonus $" + sixCard : "")
+                        + " (table " + id + ", seat " + (seat + 1) + ")");
+                if (!inPlay) {
+                    dealIfAllBet();
+                }
+            }
+        }
+        flush();
+    }
+
+    public void play(int seat) {
+        synchronized (this) {
+            if (states[seat] == DEALT) {
+                games[seat].makePlayWager();
+                states[seat] = PLAYED;
+                server.logGameEvent("Client #" + sessions[seat].getId() + " playing");
+                resolveIfDecided();
+            }
+        }
+        flush();
+    }
+
+    public void fold(int seat) {
+        synchronized (this) {
+            if (states[seat] == DEALT) {
+                foldSeat(seat);
+                resolveIfDecided();
+            }
+        }
+        flush();
+    }
+
+    // CONTINUE: hands over the result settled for this seat
+    public void collect(int seat) {
+        synchronized (this) {
+            if (states[seat] == SETTLED) {
+                deliverResult(seat);
+                if (!inPlay) {
+                    dealIfAllBet();
+                }
+            }
+        }
+        flush();
+    }
+
+    private void deliverResult(int seat) {
+        PokerInfo result = results[seat];
+        results[seat] = null;
+        states[seat] = WAITING;
+
+        PlayerSession session = sessions[seat];
+        reply(seat, result);
+        PokerInfo roundComplete = new PokerInfo("ROUND_COMPLETE");
+        roundComplete.setTotalWinnings(result.getTotalWinnings());
+        roundComplete.setGameMessage(result.getGameMessage());
+        roundComplete.setBankroll(PlayerSession.toWire(session.getBankroll()));
+        reply(seat, roundComplete);
+        server.getMetrics().roundCompleted();
+        server.logGameEvent("Client #" + session.getId() + " - " + ClientHandler.buildGameLog(result));
+    }
+
+    // Deals now when every seated player has bet, otherwise makes sure the bet window is running
+    private void dealIfAllBet() {
+        int bets = 0;
+        int undecided = 0;
+        for (int seat = 0; seat < states.length; seat++) {
+            int state = states[seat];
+            if (state == BET) bets++;
+            else if ((state == WAITING || state == SETTLED) && !sessions[seat].isParked()) undecided++;
+        }
+        if (bets == 0) return;
+        if (undecided == 0) {
+            deal();
+        } else if (deadline == null) {
+            schedule(betWindowMillis, this::dealOnDeadline);
+        }
+    }
+
+    private int countBets() {
+        int bets = 0;
+        for (int state : states) {
+            if (state == BET) bets++;
+        }
+        return bets;
+    }
+
+    private void dealOnDeadline(int forRound) {
+        synchronized (this) {
+            if (forRound != round || inPlay) return;
+            deadline = null;
+            if (countBets() > 0) {
+                deal();
+            }
+        }
+        flush();
+    }
+
+    // One numbered order for the whole table; each seat's cards sit at fixed places in it, so a
+    // hand is dealt again from the deal number and seat alone
+    private void deal() {
+        cancelDeadline();
+        deal = server.nextDeal(order);
+        for (int seat = 0; seat < states.length; seat++) {
+            if (states[seat] == BET) {
+                DeckPool.deal(order, seat, seatCards[seat], dealerCards);
+            }
+        }
+
+        inPlay = true;
+        // The round settles under the paytable it was dealt with, even if a new one is swapped in meanwhile
+        Paytable paytable = server.getPaytables().forTable(id);
+        for (int seat = 0; seat < states.length; seat++) {
+            if (states[seat] != BET) continue;
+            PokerGame game = games[seat];
+            game.setPaytable(paytable);
+            game.dealHands(seatCards[seat], dealerCards);
+            states[seat] = DEALT;
+            reply(seat, dealCards(seat));
+        }
+        schedule(decisionMillis, this::foldOnDeadline);
+    }
+
+    private PokerInfo dealCards(int seat) {
+        PokerGame game = games[seat];
+        PokerInfo response = new PokerInfo("DEAL_CARDS");
+        response.setPlayerHand(game.getPlayerHand());
+        response.setDealerHand(game.getDealerHand());
+        response.setPlayerFaceUp(game.getPlayerFaceUp());
+        response.setDealerFaceUp(game.getDealerFaceUp());
+        response.setSuccess(true);
+        if (hints) {
+            response.setPlayAdvantage(strategy.playAdvantageCents(game.getPaytable(), seatCards[seat],
+                    game.getAnteBet(), game.getPairPlusBet()));
+        }
+        return response;
+    }
+
+    private PokerInfo showDealer(int seat, String dealerMessage) {
+        PokerGame game = games[seat];
+        PokerInfo showDealer = new PokerInfo("SHOW_DEALER");
+        showDealer.setDealerHand(game.getDealerHand());
+        showDealer.setPlayerFaceUp(game.getPlayerFaceUp());
+        showDealer.setDealerFaceUp(game.getDealerFaceUp());
+        showDealer.setGameMessage(dealerMessage);
+        return showDealer;
+    }
+
+    private static String dealerMessage(int dealerKey) {
+        return "Dealer has: " + ClientHandler.getHandTypeName(dealerKey >>> 12) +
+                " | Qualifies: " + (ThreeCardLogic.qualifies(dealerKey) ? "YES" : "NO");
+    }
+
+    private void foldOnDeadline(int forRound) {
+        synchronized (this) {
+            if (forRound != round || !inPlay) return;
+            deadline = null;
+            for (int seat = 0; seat < states.length; seat++) {
+                if (states[seat] == DEALT) {
+                    server.logGameEvent("Client #" + sessions[seat].getId() + " timed out");
+                    foldSeat(seat);
+                }
+            }
+            resolveIfDecided();
+        }
+        flush();
+    }
+
+    private void foldSeat(int seat) {
+        PokerGame game = games[seat];
+        states[seat] = WAITING;
+
+        PokerInfo result = game.fold();
+        int winnings = result.getTotalWinnings();
+        reply(seat, result);
+
+        PokerInfo roundComplete = new PokerInfo("ROUND_COMPLETE");
+        roundComplete.setTotalWinnings(winnings);
+        roundComplete.setGameMessage("Folded - lost bets");
+        roundComplete.setBankroll(PlayerSession.toWire(sessions[seat].settle(winnings)));
+        reply(seat, roundComplete);
+        server.getMetrics().roundCompleted();
+        record(seat, HandRecord.FOLD, winnings, 0);
+
+        server.logGameEvent("Client #" + sessions[seat].getId() + " folded - net: $" + winnings);
+    }
+
+    // Batched settlement: one dealer evaluation, then every playing seat
+    private void resolveIfDecided() {
+        for (int state : states) {
+            if (state == DEALT) return;
+        }
+
+        int dealerKey = ThreeCardLogic.handKey(dealerCards[0], dealerCards[1], dealerCards[2]);
+        boolean dealerQualifies = ThreeCardLogic.qualifies(dealerKey);
+        String dealerMessage = dealerMessage(dealerKey);
+
+        int settled = 0;
+        for (int seat = 0; seat < states.length; seat++) {
+            if (states[seat] != PLAYED) continue;
+            PokerGame game = games[seat];
+            game.setDealerFaceUp(PokerGame.ALL_FACE_UP);
+            PokerInfo result = game.calculateResult(dealerQualifies, dealerKey);
+            results[seat] = result;
+            states[seat] = SETTLED;
+            sessions[seat].settle(result.getTotalWinnings());
+            int[] cards = seatCards[seat];
+            int playerKey = ThreeCardLogic.handKey(cards[0], cards[1], cards[2]);
+            record(seat, HandRecord.outcome(dealerQualifies, Integer.compare(playerKey, dealerKey)),
+                    result.getTotalWinnings(),
+                    game.getPaytable().pairPlusWinnings(ThreeCardLogic.evalHand(cards[0], cards[1], cards[2]),
+                            game.getPairPlusBet()));
+            settled++;
+
+            if (leaving[seat]) {
+                free(seat);
+            } else {
+                reply(seat, showDealer(seat, dealerMessage));
+            }
+        }
+        if (settled > 0) {
+            server.logGameEvent("Table " + id + " - dealer cards revealed, " + settled + " seat(s) settled");
+        }
+
+        cancelDeadline();
+        inPlay = false;
+        round++;
+        dealIfAllBet();
+    }
+
+    // Live statistics and hand history; the journal copies nothing, so the card arrays are cloned
+    private void record(int seat, int outcome, int totalWinnings, int pairPlusWinnings) {
+        PokerGame game = games[seat];
+        server.getStats().record(game.getPaytable(), seatCards[seat], game.getAnteBet(), game.getPairPlusBet(),
+                game.getSixCardBet(), game.getPlayBet(), totalWinnings, pairPlusWinnings, game.getSixCardWinnings(),
+                outcome == HandRecord.FOLD);
+        if (server.getJournal() == null) return;
+        int advantage = strategy.playAdvantageCents(game.getPaytable(), seatCards[seat], game.getAnteBet(),
+                game.getPairPlusBet());
+        journalOut.add(new HandRecord(0, System.currentTimeMillis(), sessions[seat].getId(), id, seat,
+                outcome, deal, seatCards[seat].clone(), dealerCards.clone(), game.getAnteBet(), game.getPairPlusBet(),
+                game.getSixCardBet(), game.getPlayBet(), totalWinnings, pairPlusWinnings,
+                advantage > 0 ? HandRecord.FLAG_STRATEGY_PLAY : 0, advantage, game.getPaytable()));
+    }
+
+    private void schedule(long millis, IntConsumer task) {
+        int forRound = round;
+        deadline = scheduler.schedule(() -> task.accept(forRound), millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelDeadline() {
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+    }
+
+    // Parked seats have no connection; they catch up through resume()
+    private void reply(int seat, PokerInfo info) {
+        ClientHandler to = sessions[seat].getConnection();
+        if (to != null) {
+            outboxTo.add(to);
+            outbox.add(info);
+        }
+    }
+
+    // Sends queued replies and journals settled hands outside the table lock; sendLock keeps them in order
+    private void flush() {
+        synchronized (sendLock) {
+            List<ClientHandler> to;
+            List<PokerInfo> messages;
+            List<HandRecord> records;
+            synchronized (this) {
+                if (outbox.isEmpty() && journalOut.isEmpty()) return;
+                to = new ArrayList<>(outboxTo);
+                messages = new ArrayList<>(outbox);
+                records = new ArrayList<>(journalOut);
+                outboxTo.clear();
+                outbox.clear();
+                journalOut.clear();
+            }
+            HandJournal journal = server.getJournal();
+            int dropped = 0;
+            for (HandRecord record : records) {
+                if (!journal.append(record)) dropped++;
+            }
+            if (dropped > 0) {
+                server.logGameEvent("Table " + id + ": hand journal stopped, " + dropped
+                        + " settled hand(s) not journaled");
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                to.get(i).sendPokerInfo(messages.get(i));
+            }
+        }
+    }
+}
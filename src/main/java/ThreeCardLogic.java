@@ -1,6 +1,6 @@
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ThreeCardLogic {
 
@@ -12,133 +12,230 @@ public class ThreeCardLogic {
     public static final int THREE_OF_A_KIND = 4;
     public static final int STRAIGHT_FLUSH = 5;
 
-    // Evaluate hand and return ranking
-    public static int evalHand(ArrayList<Card> hand) {
-        if (hand.size() != 3) return HIGH_CARD;
+    // Number of distinct 3-card hands, C(52,3)
+    public static final int HAND_COUNT = 22100;
+
+    // Key of the weakest hand played under the Q-6-4 rule
+    private static final int Q64_KEY = HIGH_CARD << 12 | 12 << 8 | 6 << 4 | 4;
+
+    // Key of the weakest qualifying dealer hand, Queen high
+    private static final int QUALIFY_KEY = HIGH_CARD << 12 | 12 << 8;
+
+    // Binomial coefficients C(n,2) and C(n,3) used by the perfect hash
+    private static final int[] CHOOSE2 = new int[52];
+    private static final int[] CHOOSE3 = new int[52];
 
-        boolean isFlush = isFlush(hand);
-        boolean isStraight = isStraight(hand);
-        boolean isThreeOfAKind = isThreeOfAKind(hand);
-        boolean isPair = isPair(hand);
+    // Hands per fork-join task when a batch is split across cores
+    private static final int BATCH_CHUNK = 1 << 15;
 
-        if (isStraight && isFlush) return STRAIGHT_FLUSH;
-        if (isThreeOfAKind) return THREE_OF_A_KIND;
-        if (isStraight) return STRAIGHT;
-        if (isFlush) return FLUSH;
-        if (isPair) return PAIR;
+    // Precomputed key for every 3-card combination:
+    // bits 12-14 hold the hand rank, bits 0-11 the ace-high values high to low
+    private static final int[] HAND_KEYS = new int[HAND_COUNT];
 
-        return HIGH_CARD;
+    static {
+        for (int n = 0; n < 52; n++) {
+            CHOOSE2[n] = n * (n - 1) / 2;
+            CHOOSE3[n] = n * (n - 1) * (n - 2) / 6;
+        }
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    HAND_KEYS[a + CHOOSE2[b] + CHOOSE3[c]] = computeKey(a, b, c);
+                }
+            }
+        }
     }
 
-    // Calculate Pair Plus winnings
+    // Evaluate hand and return ranking
+    public static int evalHand(ArrayList<Card> hand) {
+        if (hand.size() != 3) return HIGH_CARD;
+        return handKey(hand) >>> 12;
+    }
+
+    // Calculate Pair Plus winnings under the standard paytable; tables use their own Paytable
     public static int evalPPWinnings(ArrayList<Card> hand, int bet) {
         if (bet == 0) return 0;
 
-        int handRank = evalHand(hand);
-
-        switch (handRank) {
-            case STRAIGHT_FLUSH: return bet * 40;
-            case THREE_OF_A_KIND: return bet * 30;
-            case STRAIGHT: return bet * 6;
-            case FLUSH: return bet * 3;
-            case PAIR: return bet * 1;
-            default: return 0;
-        }
+        return Paytable.STANDARD.pairPlusWinnings(evalHand(hand), bet);
     }
 
     // Compare dealer and player hands
     public static int compareHands(ArrayList<Card> dealer, ArrayList<Card> player) {
-        int dealerRank = evalHand(dealer);
-        int playerRank = evalHand(player);
-
-        // Compare by hand ranking first
-        if (playerRank > dealerRank) return 1; // Player wins
-        if (playerRank < dealerRank) return -1; // Dealer wins
-
-        // If same rank, compare high cards
-        return compareSameRankHands(dealer, player, dealerRank);
+        // Rank sits above the high cards in the key, so one compare covers both
+        return Integer.signum(Integer.compare(handKey(player), handKey(dealer)));
     }
 
     // Check if dealer qualifies (Queen high or better)
     public static boolean dealerQualifies(ArrayList<Card> hand) {
-        int rank = evalHand(hand);
-        if (rank >= PAIR) return true;
-
-        ArrayList<Integer> values = new ArrayList<>();
-        for (Card card : hand) {
-            int value = card.getValue();
-            if (value == 1) value = 14; // Ace as high
-            values.add(value);
+        if (hand.size() != 3) {
+            int highCard = 0;
+            for (Card card : hand) {
+                highCard = Math.max(highCard, aceHigh(card.getValue()));
+            }
+            return highCard >= 12;
         }
-        Collections.sort(values, Collections.reverseOrder());
+        return qualifies(handKey(hand));
+    }
 
-        int highCard = values.get(0);
-        return highCard >= 12; // Queen=12, King=13, Ace=14
+    // Card code overloads (suit * 13 + value - 1), allocation free
+    public static int evalHand(int c0, int c1, int c2) {
+        return handKey(c0, c1, c2) >>> 12;
     }
 
-    // Helper methods
-    private static boolean isFlush(ArrayList<Card> hand) {
-        Suit firstSuit = hand.get(0).getSuit();
-        return hand.stream().allMatch(card -> card.getSuit() == firstSuit);
+    public static int evalPPWinnings(int c0, int c1, int c2, int bet) {
+        if (bet == 0) return 0;
+        return Paytable.STANDARD.pairPlusWinnings(evalHand(c0, c1, c2), bet);
     }
 
-    private static boolean isStraight(ArrayList<Card> hand) {
-        ArrayList<Integer> values = new ArrayList<>();
-        for (Card card : hand) {
-            values.add(card.getValue());
+    public static int compareHands(int d0, int d1, int d2, int p0, int p1, int p2) {
+        return Integer.signum(Integer.compare(handKey(p0, p1, p2), handKey(d0, d1, d2)));
+    }
+
+    public static boolean dealerQualifies(int c0, int c1, int c2) {
+        return qualifies(handKey(c0, c1, c2));
+    }
+
+    // Standard play rule: play Queen-6-4 or better, fold anything lower
+    public static boolean playsQ64(int c0, int c1, int c2) {
+        return handKey(c0, c1, c2) >= Q64_KEY;
+    }
+
+    // Batch evaluation of packed hands: hand i is cards[3i], cards[3i + 1], cards[3i + 2].
+    // Fills ranks[i] with evalHand's rank and keys[i] with the comparable key (rank,
+    // then high cards, as compareHands uses); either output may be null. Results are
+    // the scalar overloads' exactly. Batches over BATCH_CHUNK hands are split across
+    // the common fork-join pool.
+    public static void evalHands(int[] cards, int[] ranks, int[] keys) {
+        evalHands(cards, 0, cards.length / 3, ranks, keys);
+    }
+
+    // Hands from (inclusive) to (exclusive) of the packed array, into the same positions of the outputs
+    public static void evalHands(int[] cards, int from, int to, int[] ranks, int[] keys) {
+        if (from < 0 || from > to || 3L * to > cards.length
+                || (ranks != null && to > ranks.length) || (keys != null && to > keys.length)) {
+            throw new IndexOutOfBoundsException("Hands " + from + " to " + to + " of " + cards.length / 3);
+        }
+        if (to - from > BATCH_CHUNK && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new EvalTask(cards, from, to, ranks, keys));
+        } else {
+            evalRange(cards, from, to, ranks, keys);
         }
-        Collections.sort(values);
+    }
 
-        // Check for normal straight
-        if (values.get(0) + 1 == values.get(1) && values.get(1) + 1 == values.get(2)) {
-            return true;
+    // One straight-line pass per output combination: min/max become conditional moves,
+    // the index is arithmetic and the key one load from a 22,100-entry table that stays
+    // in cache. The duplicate-card guard is never taken for dealt hands. The table loads
+    // are gathers, which the JIT does not vectorize, so each pass is kept free of
+    // branches and calls rather than shaped for SIMD.
+    private static void evalRange(int[] cards, int from, int to, int[] ranks, int[] keys) {
+        if (keys != null && ranks != null) {
+            for (int i = from; i < to; i++) {
+                int key = handKey(cards[3 * i], cards[3 * i + 1], cards[3 * i + 2]);
+                keys[i] = key;
+                ranks[i] = key >>> 12;
+            }
+        } else if (keys != null) {
+            for (int i = from; i < to; i++) {
+                keys[i] = handKey(cards[3 * i], cards[3 * i + 1], cards[3 * i + 2]);
+            }
+        } else if (ranks != null) {
+            for (int i = from; i < to; i++) {
+                ranks[i] = handKey(cards[3 * i], cards[3 * i + 1], cards[3 * i + 2]) >>> 12;
+            }
         }
+    }
 
-        // Check for Ace-low straight (A-2-3)
-        if (values.contains(1) && values.contains(2) && values.contains(3)) {
-            return true;
+    private static class EvalTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] cards;
+        private final int from;
+        private final int to;
+        private final int[] ranks;
+        private final int[] keys;
+
+        EvalTask(int[] cards, int from, int to, int[] ranks, int[] keys) {
+            this.cards = cards;
+            this.from = from;
+            this.to = to;
+            this.ranks = ranks;
+            this.keys = keys;
         }
 
-        return false;
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_CHUNK) {
+                evalRange(cards, from, to, ranks, keys);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvalTask(cards, from, mid, ranks, keys), new EvalTask(cards, mid, to, ranks, keys));
+        }
+    }
+
+    // Table index of three distinct card codes (0-51), in any order
+    public static int handIndex(int c0, int c1, int c2) {
+        int lo = Math.min(c0, Math.min(c1, c2));
+        int hi = Math.max(c0, Math.max(c1, c2));
+        int mid = c0 + c1 + c2 - lo - hi;
+        return lo + CHOOSE2[mid] + CHOOSE3[hi];
     }
 
-    private static boolean isThreeOfAKind(ArrayList<Card> hand) {
-        int firstValue = hand.get(0).getValue();
-        return hand.stream().allMatch(card -> card.getValue() == firstValue);
+    // Helper methods
+    private static int handKey(ArrayList<Card> hand) {
+        return handKey(hand.get(0).getCode(), hand.get(1).getCode(), hand.get(2).getCode());
     }
 
-    private static boolean isPair(ArrayList<Card> hand) {
-        ArrayList<Integer> values = new ArrayList<>();
-        for (Card card : hand) {
-            values.add(card.getValue());
+    // Strength of a hand as one int: the rank, then the card values in order of importance,
+    // a nibble each. Keys order hands exactly as a showdown does, equal keys tie, so they can be
+    // compared, cached, sorted and binary searched as plain ints.
+    public static int handKey(int c0, int c1, int c2) {
+        // The table only covers distinct cards
+        if (c0 == c1 || c1 == c2 || c0 == c2) {
+            return computeKey(c0, c1, c2);
         }
+        return HAND_KEYS[handIndex(c0, c1, c2)];
+    }
 
-        return values.stream().distinct().count() == 2;
+    public static boolean qualifies(int key) {
+        return key >= QUALIFY_KEY;
     }
 
-    private static int compareSameRankHands(ArrayList<Card> dealer, ArrayList<Card> player, int rank) {
-        // For simplicity in this implementation
-        // In a full implementation, you'd compare high cards appropriately
-        ArrayList<Integer> dealerValues = getSortedValues(dealer);
-        ArrayList<Integer> playerValues = getSortedValues(player);
+    private static int aceHigh(int value) {
+        return value == 1 ? 14 : value;
+    }
 
-        for (int i = 2; i >= 0; i--) {
-            if (playerValues.get(i) > dealerValues.get(i)) return 1;
-            if (playerValues.get(i) < dealerValues.get(i)) return -1;
-        }
+    // Reference evaluation used to fill the table
+    private static int computeKey(int c0, int c1, int c2) {
+        int v0 = c0 % 13 + 1, v1 = c1 % 13 + 1, v2 = c2 % 13 + 1;
 
-        return 0; // Tie
-    }
+        boolean isFlush = c0 / 13 == c1 / 13 && c1 / 13 == c2 / 13;
+        boolean isThreeOfAKind = v0 == v1 && v1 == v2;
+        boolean isPair = !isThreeOfAKind && (v0 == v1 || v1 == v2 || v0 == v2);
 
-    private static ArrayList<Integer> getSortedValues(ArrayList<Card> hand) {
-        ArrayList<Integer> values = new ArrayList<>();
-        for (Card card : hand) {
-            int value = card.getValue();
-            // Treat Ace as high for comparison
-            if (value == 1) value = 14;
-            values.add(value);
-        }
-        Collections.sort(values);
-        return values;
+        int lo = Math.min(v0, Math.min(v1, v2));
+        int hi = Math.max(v0, Math.max(v1, v2));
+        int mid = v0 + v1 + v2 - lo - hi;
+        boolean isStraight = (lo + 1 == mid && mid + 1 == hi) || (lo == 1 && mid == 2 && hi == 3);
+
+        int rank = HIGH_CARD;
+        if (isStraight && isFlush) rank = STRAIGHT_FLUSH;
+        else if (isThreeOfAKind) rank = THREE_OF_A_KIND;
+        else if (isStraight) rank = STRAIGHT;
+        else if (isFlush) rank = FLUSH;
+        else if (isPair) rank = PAIR;
+
+        // A-2-3 is the lowest straight, the Ace playing low
+        if (isStraight && lo == 1) return rank << 12 | 3 << 8 | 2 << 4 | 1;
+
+        // High cards with Ace treated as high, sorted descending
+        int a = aceHigh(v0), b = aceHigh(v1), c = aceHigh(v2);
+        int high = Math.max(a, Math.max(b, c));
+        int low = Math.min(a, Math.min(b, c));
+        int middle = a + b + c - high - low;
+
+        // The paired value comes before the kicker; sorted, the middle card is always one of the pair
+        if (rank == PAIR) return rank << 12 | middle << 8 | middle << 4 | (high == middle ? low : high);
+
+        return rank << 12 | high << 8 | middle << 4 | low;
     }
-}
\ No newline at end of file
+}
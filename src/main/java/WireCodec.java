@@ -0,0 +1,296 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Compact binary encoding of PokerInfo, negotiated per connection.
+//
+// Handshake: on connect the server always sends the Java serialization stream
+// header (0xACED0005), so legacy clients work unchanged. A binary client skips
+// those four bytes and sends HELLO ('P' '3' 'B' version); the server replies
+// with HELLO carrying the version it accepted. Anything else means legacy.
+//
+// Frame: varint payload length, then
+//   byte    message type code (MessageType; 0 = custom, followed by the name)
+//   varint  field mask, then each present field in bit order:
+//           hands as a count byte plus one byte per card code,
+//           ints as zigzag varints, strings as varint length plus UTF-8
+public final class WireCodec {
+    public static final int VERSION = 1;
+    public static final int MAX_FRAME = 64 * 1024;
+    public static final byte[] STREAM_HEADER = {(byte) 0xAC, (byte) 0xED, 0x00, 0x05};
+
+    private static final byte[] MAGIC = {'P', '3', 'B'};
+
+    private static final int PLAYER_HAND = 1;
+    private static final int DEALER_HAND = 1 << 1;
+    private static final int PLAYER_FACE_UP = 1 << 2;
+    private static final int DEALER_FACE_UP = 1 << 3;
+    private static final int ANTE_BET = 1 << 4;
+    private static final int PAIR_PLUS_BET = 1 << 5;
+    private static final int PLAY_BET = 1 << 6;
+    private static final int TOTAL_WINNINGS = 1 << 7;
+    private static final int GAME_MESSAGE = 1 << 8;
+    private static final int PLAYER_ID = 1 << 9;
+    private static final int SUCCESS = 1 << 10; // flag only, no payload
+    private static final int GAME_STATE = 1 << 11;
+    private static final int SESSION_TOKEN = 1 << 12;
+    private static final int BANKROLL = 1 << 13;
+    private static final int ROUNDS = 1 << 14;
+    private static final int DETAIL = 1 << 15; // flag only, no payload
+    private static final int PLAY_ADVANTAGE = 1 << 16;
+    private static final int SIX_CARD_BET = 1 << 17;
+    private static final int KNOWN_FIELDS = (1 << 18) - 1;
+
+    private WireCodec() {}
+
+    public static byte[] hello(int version) {
+        return new byte[] {MAGIC[0], MAGIC[1], MAGIC[2], (byte) version};
+    }
+
+    // Version requested by a HELLO, or -1 if the bytes are not one
+    public static int helloVersion(byte[] bytes, int offset) {
+        if (bytes[offset] != MAGIC[0] || bytes[offset + 1] != MAGIC[1] || bytes[offset + 2] != MAGIC[2]) {
+            return -1;
+        }
+        return bytes[offset + 3] & 0xFF;
+    }
+
+    public static byte[] encodeFrame(PokerInfo info) {
+        Writer body = new Writer(64);
+        MessageType type = MessageType.fromName(info.getMessageType());
+        if (type != null) {
+            body.writeByte(type.getCode());
+        } else {
+            body.writeByte(MessageType.CUSTOM);
+            body.writeString(info.getMessageType() == null ? "" : info.getMessageType());
+        }
+
+        int mask = 0;
+        if (info.getPlayerHand() != null && !info.getPlayerHand().isEmpty()) mask |= PLAYER_HAND;
+        if (info.getDealerHand() != null && !info.getDealerHand().isEmpty()) mask |= DEALER_HAND;
+        if (info.getPlayerFaceUp() != 0) mask |= PLAYER_FACE_UP;
+        if (info.getDealerFaceUp() != 0) mask |= DEALER_FACE_UP;
+        if (info.getAnteBet() != 0) mask |= ANTE_BET;
+        if (info.getPairPlusBet() != 0) mask |= PAIR_PLUS_BET;
+        if (info.getPlayBet() != 0) mask |= PLAY_BET;
+        if (info.getTotalWinnings() != 0) mask |= TOTAL_WINNINGS;
+        if (info.getGameMessage() != null) mask |= GAME_MESSAGE;
+        if (info.getPlayerId() != 0) mask |= PLAYER_ID;
+        if (info.isSuccess()) mask |= SUCCESS;
+        if (info.getGameState() != null) mask |= GAME_STATE;
+        if (info.getSessionToken() != null) mask |= SESSION_TOKEN;
+        if (info.getBankroll() != 0) mask |= BANKROLL;
+        if (info.getRounds() != 0) mask |= ROUNDS;
+        if (info.isDetail()) mask |= DETAIL;
+        if (info.getPlayAdvantage() != 0) mask |= PLAY_ADVANTAGE;
+        if (info.getSixCardBet() != 0) mask |= SIX_CARD_BET;
+        body.writeVarint(mask);
+
+        if ((mask & PLAYER_HAND) != 0) body.writeHand(info.getPlayerHand());
+        if ((mask & DEALER_HAND) != 0) body.writeHand(info.getDealerHand());
+        if ((mask & PLAYER_FACE_UP) != 0) body.writeVarint(info.getPlayerFaceUp());
+        if ((mask & DEALER_FACE_UP) != 0) body.writeVarint(info.getDealerFaceUp());
+        if ((mask & ANTE_BET) != 0) body.writeSigned(info.getAnteBet());
+        if ((mask & PAIR_PLUS_BET) != 0) body.writeSigned(info.getPairPlusBet());
+        if ((mask & PLAY_BET) != 0) body.writeSigned(info.getPlayBet());
+        if ((mask & TOTAL_WINNINGS) != 0) body.writeSigned(info.getTotalWinnings());
+        if ((mask & GAME_MESSAGE) != 0) body.writeString(info.getGameMessage());
+        if ((mask & PLAYER_ID) != 0) body.writeSigned(info.getPlayerId());
+        if ((mask & GAME_STATE) != 0) body.writeString(info.getGameState());
+        if ((mask & SESSION_TOKEN) != 0) body.writeString(info.getSessionToken());
+        if ((mask & BANKROLL) != 0) body.writeSigned(info.getBankroll());
+        if ((mask & ROUNDS) != 0) body.writeSigned(info.getRounds());
+        if ((mask & PLAY_ADVANTAGE) != 0) body.writeSigned(info.getPlayAdvantage());
+        if ((mask & SIX_CARD_BET) != 0) body.writeSigned(info.getSixCardBet());
+
+        Writer frame = new Writer(body.length + 3);
+        frame.writeVarint(body.length);
+        frame.writeBytes(body.buffer, 0, body.length);
+        return frame.toByteArray();
+    }
+
+    public static PokerInfo decode(byte[] buffer, int offset, int length) throws IOException {
+        Reader in = new Reader(buffer, offset, length);
+        int code = in.readByte();
+        String typeName;
+        if (code == MessageType.CUSTOM) {
+            typeName = in.readString();
+        } else {
+            MessageType type = MessageType.fromCode(code);
+            if (type == null) throw new IOException("Unknown message type code " + code);
+            typeName = type.name();
+        }
+        PokerInfo info = new PokerInfo(typeName);
+
+        int mask = in.readVarint();
+        if ((mask & ~KNOWN_FIELDS) != 0) throw new IOException("Unknown fields 0x" + Integer.toHexString(mask));
+
+        if ((mask & PLAYER_HAND) != 0) info.setPlayerHand(in.readHand());
+        if ((mask & DEALER_HAND) != 0) info.setDealerHand(in.readHand());
+        if ((mask & PLAYER_FACE_UP) != 0) info.setPlayerFaceUp(in.readVarint());
+        if ((mask & DEALER_FACE_UP) != 0) info.setDealerFaceUp(in.readVarint());
+        if ((mask & ANTE_BET) != 0) info.setAnteBet(in.readSigned());
+        if ((mask & PAIR_PLUS_BET) != 0) info.setPairPlusBet(in.readSigned());
+        if ((mask & PLAY_BET) != 0) info.setPlayBet(in.readSigned());
+        if ((mask & TOTAL_WINNINGS) != 0) info.setTotalWinnings(in.readSigned());
+        if ((mask & GAME_MESSAGE) != 0) info.setGameMessage(in.readString());
+        if ((mask & PLAYER_ID) != 0) info.setPlayerId(in.readSigned());
+        info.setSuccess((mask & SUCCESS) != 0);
+        if ((mask & GAME_STATE) != 0) info.setGameState(in.readString());
+        if ((mask & SESSION_TOKEN) != 0) info.setSessionToken(in.readString());
+        if ((mask & BANKROLL) != 0) info.setBankroll(in.readSigned());
+        if ((mask & ROUNDS) != 0) info.setRounds(in.readSigned());
+        info.setDetail((mask & DETAIL) != 0);
+        if ((mask & PLAY_ADVANTAGE) != 0) info.setPlayAdvantage(in.readSigned());
+        if ((mask & SIX_CARD_BET) != 0) info.setSixCardBet(in.readSigned());
+
+        if (in.position != in.limit) throw new IOException("Trailing bytes in frame");
+        return info;
+    }
+
+    // Blocking read of one frame
+    public static PokerInfo readFrame(InputStream in) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            if (shift > 28) throw new IOException("Malformed frame length");
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        checkFrameLength(length);
+        byte[] payload = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(payload, read, length - read);
+            if (n < 0) throw new EOFException();
+            read += n;
+        }
+        return decode(payload, 0, length);
+    }
+
+    // Length of the frame starting at offset as {headerBytes, payloadLength}, or null if incomplete
+    public static int[] peekFrameLength(byte[] buffer, int offset, int available) throws IOException {
+        int length = 0;
+        for (int i = 0; i < 5; i++) {
+            if (i >= available) return null;
+            int b = buffer[offset + i] & 0xFF;
+            length |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                checkFrameLength(length);
+                return new int[] {i + 1, length};
+            }
+        }
+        throw new IOException("Malformed frame length");
+    }
+
+    private static void checkFrameLength(int length) throws IOException {
+        if (length <= 0 || length > MAX_FRAME) throw new IOException("Invalid frame length " + length);
+    }
+
+    private static final class Writer {
+        byte[] buffer;
+        int length;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            buffer[length++] = (byte) b;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int count) {
+            if (length + count > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+            }
+            System.arraycopy(bytes, offset, buffer, length, count);
+            length += count;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeSigned(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        void writeHand(ArrayList<Card> hand) {
+            writeByte(hand.size());
+            for (Card card : hand) {
+                writeByte(card.getCode());
+            }
+        }
+
+        byte[] toByteArray() {
+            return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private static final class Reader {
+        final byte[] buffer;
+        int position;
+        final int limit;
+
+        Reader(byte[] buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        int readByte() throws IOException {
+            if (position >= limit) throw new EOFException("Truncated frame");
+            return buffer[position++] & 0xFF;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int readSigned() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() throws IOException {
+            int length = readVarint();
+            if (length < 0 || length > limit - position) throw new EOFException("Truncated string");
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        ArrayList<Card> readHand() throws IOException {
+            int count = readByte();
+            if (count > 52) throw new IOException("Hand too large: " + count);
+            ArrayList<Card> hand = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int code = readByte();
+                if (code >= 52) throw new IOException("Invalid card code " + code);
+                hand.add(Card.of(code));
+            }
+            return hand;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+public class DeckTest {
+
+    private static DeckKey key(int fill) {
+        byte[] bytes = new byte[DeckKey.BYTES];
+        java.util.Arrays.fill(bytes, (byte) fill);
+        return new DeckKey(bytes);
+    }
+
+    // new Card(Suit.HEARTS, 12) with faceUp set, as the original class with faceUp and imagePath serialized it
+    private static final String BASELINE_QUEEN_OF_HEARTS =
+            "aced00057372000443617264edfa899ff9349b4a0200045a000666616365557049000576616c75654c0009696d616765"
+            + "506174687400124c6a6176612f6c616e672f537472696e673b4c0004737569747400064c537569743b7870010000000c"
+            + "7400007e7200045375697400000000000000001200007872000e6a6176612e6c616e672e456e756d0000000000000000"
+            + "1200007870740006484541525453";
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Test
+    void testCard_SerializesToTheSharedInstanceAndRejectsTheOldShape() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Card.of(Suit.HEARTS, 12));
+        }
+        assertSame(Card.of(Suit.HEARTS, 12), deserialize(bytes.toByteArray()));
+
+        byte[] baseline = new byte[BASELINE_QUEEN_OF_HEARTS.length() / 2];
+        for (int i = 0; i < baseline.length; i++) {
+            baseline[i] = (byte) Integer.parseInt(BASELINE_QUEEN_OF_HEARTS.substring(2 * i, 2 * i + 2), 16);
+        }
+        // The face state would be lost, so the old shape must not be read as a card
+        assertThrows(InvalidClassException.class, () -> deserialize(baseline));
+    }
+
+    @Test
+    void testDrawCard_FullDeckHasNoDuplicates() {
+        Deck deck = new Deck();
+        deck.shuffle();
+
+        boolean[] seen = new boolean[52];
+        for (int i = 0; i < 52; i++) {
+            int code = deck.drawCode();
+            assertFalse(seen[code], "Each card should be dealt once per shuffle");
+            seen[code] = true;
+        }
+        assertEquals(0, deck.cardsRemaining());
+    }
+
+    @Test
+    void testShuffle_ReusedDeckStaysComplete() {
+        Deck deck = new Deck(CardRandom.threadLocal());
+        for (int round = 0; round < 1000; round++) {
+            deck.shuffle();
+            boolean[] seen = new boolean[52];
+            for (int i = 0; i < 6; i++) {
+                int code = deck.drawCode();
+                assertFalse(seen[code], "A round should never deal the same card twice");
+                seen[code] = true;
+            }
+            assertEquals(46, deck.cardsRemaining());
+        }
+    }
+
+    @Test
+    void testSeededRandom_IsRepeatable() {
+        Deck first = new Deck(CardRandom.splittable(42));
+        Deck second = new Deck(CardRandom.splittable(42));
+        for (int i = 0; i < 52; i++) {
+            assertEquals(first.drawCode(), second.drawCode(), "Same seed should deal the same cards");
+        }
+    }
+
+    @Test
+    void testDrawCard_ReshufflesWhenEmpty() {
+        Deck deck = new Deck(CardRandom.secure());
+        for (int i = 0; i < 52; i++) {
+            deck.drawCard();
+        }
+        assertNotNull(deck.drawCard());
+        assertEquals(51, deck.cardsRemaining());
+    }
+
+    @Test
+    void testOrder_PartialShuffleMatchesTheFullOrder() {
+        byte[] full = DeckPool.order(key(7), 1, 3);
+        byte[] partial = new byte[52];
+        DeckPool.order(key(7), 1, 3, partial, DeckPool.cardsFor(2));
+        assertArrayEquals(java.util.Arrays.copyOf(full, 12), java.util.Arrays.copyOf(partial, 12));
+
+        // The dealer's cards first, then seat 2's after seats 0 and 1
+        int[] player = new int[3];
+        int[] dealer = new int[3];
+        DeckPool.deal(full, 2, player, dealer);
+        assertArrayEquals(new int[] {full[0], full[1], full[2]}, dealer);
+        assertArrayEquals(new int[] {full[9], full[10], full[11]}, player);
+    }
+
+    @Test
+    void testOrder_EveryCardLeadsAboutEqually() {
+        int[] leads = new int[52];
+        for (int number = 0; number < 5200; number++) {
+            byte[] order = DeckPool.order(key(11), 1, number);
+            boolean[] seen = new boolean[52];
+            for (byte card : order) {
+                assertFalse(seen[card], "An order should hold every card once");
+                seen[card] = true;
+            }
+            leads[order[0]]++;
+        }
+        for (int count : leads) {
+            assertTrue(count > 50 && count < 160, "Lead card counts should be near 100, got " + count);
+        }
+    }
+
+    @Test
+    void testOrder_IsReproducibleFromSeedNonceAndNumber() {
+        byte[] order = DeckPool.order(key(7), 1, 3);
+        assertArrayEquals(order, DeckPool.order(key(7), 1, 3),
+                "An order should be reproducible from key, nonce and number");
+        assertFalse(java.util.Arrays.equals(order, DeckPool.order(key(7), 1, 4)));
+        assertFalse(java.util.Arrays.equals(order, DeckPool.order(key(7), 2, 3)), "Another start's nonce deals anew");
+        assertFalse(java.util.Arrays.equals(order, DeckPool.order(key(8), 1, 3)));
+    }
+
+    @Test
+    void testDeckKey_CreatedOwnerOnlyAndLoadedBack(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("deck.key");
+        DeckKey created = DeckKey.load(file, true);
+        assertEquals(2 * DeckKey.BYTES, Files.readString(file).trim().length(), "256 bits");
+        assertEquals(created.getFingerprint(), DeckKey.load(file, false).getFingerprint());
+        assertArrayEquals(DeckPool.order(created, 1, 2), DeckPool.order(DeckKey.load(file, false), 1, 2));
+        if (!file.getFileSystem().supportedFileAttributeViews().contains("posix")) return;
+
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+        assertThrows(IOException.class, () -> DeckKey.load(file, false), "A key others can read is refused");
+
+        Path shortKey = dir.resolve("short.key");
+        Files.writeString(shortKey, "0123456789abcdef");
+        Files.setPosixFilePermissions(shortKey, PosixFilePermissions.fromString("rw-------"));
+        assertThrows(IOException.class, () -> DeckKey.load(shortKey, false), "A 64-bit key is too short");
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FiveCardLogicTest {
+
+    // Card code from a value (Ace = 1, King = 13) and a suit index
+    private static int card(int value, int suit) {
+        return suit * 13 + value - 1;
+    }
+
+    @Test
+    void testEvalFive_OrdersCategoriesAndKickers() {
+        int royal = FiveCardLogic.evalFive(card(1, 0), card(13, 0), card(12, 0), card(11, 0), card(10, 0));
+        int wheel = FiveCardLogic.evalFive(card(1, 0), card(2, 1), card(3, 2), card(4, 3), card(5, 0));
+        int sixHigh = FiveCardLogic.evalFive(card(6, 0), card(2, 1), card(3, 2), card(4, 3), card(5, 0));
+        int acesUp = FiveCardLogic.evalFive(card(1, 0), card(1, 1), card(9, 2), card(9, 3), card(5, 0));
+        int kingsUp = FiveCardLogic.evalFive(card(13, 0), card(13, 1), card(12, 2), card(12, 3), card(11, 0));
+        int worst = FiveCardLogic.evalFive(card(7, 0), card(5, 1), card(4, 2), card(3, 3), card(2, 0));
+
+        assertEquals(FiveCardLogic.VALUE_COUNT, royal);
+        assertEquals(FiveCardLogic.ROYAL_FLUSH, FiveCardLogic.category(royal));
+        assertEquals(FiveCardLogic.STRAIGHT, FiveCardLogic.category(wheel));
+        assertTrue(sixHigh > wheel, "The Ace plays low in A-2-3-4-5");
+        assertEquals(FiveCardLogic.TWO_PAIR, FiveCardLogic.category(acesUp));
+        assertTrue(acesUp > kingsUp);
+        assertEquals(1, worst);
+    }
+
+    @Test
+    void testBestOfSix_CountsEveryDealLikeTheTextbook() {
+        long[] counts = HouseEdgeSimulator.sixCardCounts();
+        long[] expected = {6612900, 9730740, 2532816, 732160, 361620, 205792, 165984, 14664, 1656, 188};
+        assertArrayEquals(expected, counts);
+    }
+
+    @Test
+    void testSixCardBonus_SettlesOnAFold() {
+        PokerGame game = new PokerGame(null);
+        game.placeBets(10, 0, 5);
+        // Player K-K-4, dealer K-4-4 of other suits: full house
+        game.dealHands(new int[] {card(13, 0), card(13, 1), card(4, 2)},
+                new int[] {card(13, 2), card(4, 3), card(4, 0)});
+        assertEquals(5 * 21, game.getSixCardWinnings());
+        assertEquals(5 * 21 - 15, game.fold().getTotalWinnings());
+    }
+}
@@ -0,0 +1,197 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+public class HandJournalTest {
+
+    private static final DeckKey KEY = new DeckKey(new byte[] {42, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15});
+    private static final long NONCE = 7;
+
+    // Seat 2 of deal number playerId
+    private static HandRecord hand(int playerId, int net) {
+        int[] player = new int[3];
+        int[] dealer = new int[3];
+        DeckPool.deal(DeckPool.order(KEY, NONCE, playerId), 2, player, dealer);
+        return new HandRecord(0, System.currentTimeMillis(), playerId, 1, 2, HandRecord.WIN, playerId,
+                player, dealer, 10, 5, 70000, 10, net, 5, HandRecord.FLAG_STRATEGY_PLAY, -1234, Paytable.STANDARD);
+    }
+
+    private static int readAll(Path dir, long firstSequence) throws IOException {
+        int count = 0;
+        try (HandJournal.Reader reader = HandJournal.read(dir, KEY)) {
+            while (reader.hasNext()) {
+                HandRecord record = reader.next();
+                assertEquals(firstSequence + count, record.sequence);
+                assertEquals(count, record.playerId);
+                assertEquals(70000, record.sixCard);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void testAppend_RoundTripsAcrossSegments(@TempDir Path dir) throws IOException {
+        // Room for 10 records per segment
+        HandJournal journal = new HandJournal(dir, KEY.getFingerprint(), NONCE, 11 * HandRecord.SIZE, 1, 64, null);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(journal.append(hand(i, i * 3)));
+        }
+        journal.close();
+        assertFalse(journal.append(hand(25, 0)), "A closed journal refuses the record");
+        assertEquals(1, journal.getDroppedCount());
+
+        assertEquals(3, HandJournal.segments(dir).size());
+        assertEquals(25, readAll(dir, 1));
+        try (HandJournal.Reader reader = HandJournal.read(dir, KEY)) {
+            HandRecord first = reader.next();
+            HandRecord written = hand(0, 0);
+            assertArrayEquals(written.playerCards, first.playerCards, "Cards should be dealt again from the key");
+            assertEquals(HandRecord.FLAG_STRATEGY_PLAY, first.flags);
+            assertEquals(-1234, first.playAdvantageCents);
+            assertArrayEquals(written.dealerCards, first.dealerCards);
+            assertEquals(HandRecord.WIN, first.outcome);
+            assertEquals(2, first.seat);
+            assertEquals(5, first.pairPlusWinnings);
+        }
+
+        // The segments hold the key's fingerprint, not the key; without it the bets and results still read
+        for (Path segment : HandJournal.segments(dir)) {
+            byte[] bytes = Files.readAllBytes(segment);
+            for (int i = 0; i + 16 <= bytes.length; i++) {
+                assertFalse(Arrays.equals(KEY.spec().getEncoded(), Arrays.copyOfRange(bytes, i, i + 16)));
+            }
+        }
+        try (HandJournal.Reader reader = HandJournal.read(dir, new DeckKey(new byte[16]))) {
+            HandRecord first = reader.next();
+            assertNull(first.playerCards, "Another key should not deal the segment");
+            assertEquals(0, first.totalWinnings);
+        }
+    }
+
+    @Test
+    void testReopen_ContinuesAfterLastRecord(@TempDir Path dir) throws IOException {
+        HandJournal journal = new HandJournal(dir, KEY.getFingerprint(), NONCE, 1 << 16, 1, 64, null);
+        for (int i = 0; i < 5; i++) {
+            journal.append(hand(i, 0));
+        }
+        journal.close();
+
+        journal = new HandJournal(dir, KEY.getFingerprint(), NONCE, 1 << 16, 1, 64, null);
+        for (int i = 5; i < 8; i++) {
+            journal.append(hand(i, 0));
+        }
+        journal.close();
+
+        assertEquals(1, HandJournal.segments(dir).size());
+        assertEquals(8, readAll(dir, 1));
+
+        // Another key or nonce starts a segment of its own
+        journal = new HandJournal(dir, KEY.getFingerprint() + 1, NONCE, 1 << 16, 1, 64, null);
+        journal.close();
+        assertEquals(2, HandJournal.segments(dir).size());
+        journal = new HandJournal(dir, KEY.getFingerprint() + 1, NONCE, 1 << 16, 1, 64, null);
+        journal.append(hand(8, 0));
+        journal.close();
+        journal = new HandJournal(dir, KEY.getFingerprint() + 1, NONCE + 1, 1 << 16, 1, 64, null);
+        journal.close();
+        assertEquals(3, HandJournal.segments(dir).size());
+    }
+
+    // Folded, so the result depends only on the bets: ante, Pair Plus and 6 Card Bonus settled from the deal
+    private static int foldNet(Paytable paytable, int[] player, int[] dealer) {
+        PokerGame game = new PokerGame(null);
+        game.setPaytable(paytable);
+        game.placeBets(10, 5, 2);
+        game.dealHands(player, dealer);
+        return game.fold().getTotalWinnings();
+    }
+
+    @Test
+    void testReplay_SettlesUnderTheJournaledPaytable(@TempDir Path dir) throws IOException {
+        int[] player = new int[3];
+        int[] dealer = new int[3];
+        DeckPool.deal(DeckPool.order(KEY, NONCE, 9), 0, player, dealer);
+        // Swapped in mid-run: every Pair Plus and 6 Card Bonus hand at least returns its stake
+        Paytable swapped = Paytable.parse("name=swapped\npairPlus.highCard=1\nsixCard.highCard=1\nsixCard.pair=1\n");
+        int net = foldNet(Paytable.STANDARD, player, dealer);
+        int swappedNet = foldNet(swapped, player, dealer);
+        assertNotEquals(net, swappedNet);
+
+        HandJournal journal = new HandJournal(dir, KEY.getFingerprint(), NONCE, 1 << 16, 1, 64, null);
+        journal.append(new HandRecord(0, 1, 1, 1, 0, HandRecord.FOLD, 9, player, dealer, 10, 5, 2, 0, net, 0, 0, 0,
+                Paytable.STANDARD));
+        journal.append(new HandRecord(0, 1, 1, 1, 0, HandRecord.FOLD, 9, player, dealer, 10, 5, 2, 0, swappedNet, 0,
+                0, 0, swapped));
+        journal.append(new HandRecord(0, 1, 1, 1, 0, HandRecord.FOLD, 9, player, dealer, 10, 5, 2, 0, net + 1, 0,
+                0, 0, Paytable.STANDARD));
+        journal.close();
+        // A restart keeps the ids: an equal paytable is not written again
+        journal = new HandJournal(dir, KEY.getFingerprint(), NONCE, 1 << 16, 1, 64, null);
+        journal.append(new HandRecord(0, 1, 1, 1, 0, HandRecord.FOLD, 9, player, dealer, 10, 5, 2, 0, swappedNet, 0,
+                0, 0, Paytable.parse(swapped.canonical())));
+        journal.close();
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.filter(file -> file.toString().endsWith(".properties")).count());
+        }
+
+        try (HandJournal.Reader reader = HandJournal.read(dir, KEY)) {
+            HandRecord first = reader.next();
+            assertEquals("standard", first.paytable.getName());
+            assertNull(HandReplay.check(first, first.paytable));
+            HandRecord second = reader.next();
+            assertEquals(swapped.canonical(), second.paytable.canonical());
+            assertNull(HandReplay.check(second, second.paytable), "A hand from before a swap is not a mismatch");
+            HandRecord third = reader.next();
+            assertEquals("net " + (net + 1) + ", replayed " + net, HandReplay.check(third, third.paytable));
+            HandRecord fourth = reader.next();
+            assertNull(HandReplay.check(fourth, fourth.paytable));
+        }
+    }
+
+    @Test
+    void testRead_DecodesV1SegmentsBeforeNewOnes(@TempDir Path dir) throws IOException {
+        // A P3J1 segment as the old writer laid it out: the cards and hand ranks at 24-31
+        ByteBuffer segment = ByteBuffer.allocate(3 * HandRecord.SIZE);
+        segment.putInt(0x50334A31).putInt(HandRecord.SIZE).putLong(1);
+        segment.position(HandRecord.SIZE);
+        segment.putLong(1).putLong(1000).putInt(3).putShort((short) 2).put((byte) 1).put((byte) HandRecord.FOLD);
+        segment.put(new byte[] {12, 11, 10, 0, 1, 2}); // K Q J of hearts, A 2 3 of hearts
+        segment.put((byte) ThreeCardLogic.STRAIGHT_FLUSH).put((byte) ThreeCardLogic.STRAIGHT_FLUSH);
+        segment.putInt(10).putInt(0).putInt(0).putInt(-10).putInt(0).put((byte) 0).putInt(0);
+        segment.put((byte) 0).put((byte) 0).put((byte) 0);
+        CRC32 crc = new CRC32();
+        crc.update(segment.array(), HandRecord.SIZE, 60);
+        segment.putInt((int) crc.getValue());
+        Files.write(dir.resolve("hands-00000000000000000001.journal"), segment.array());
+
+        // The writer moves on to a segment of its own
+        HandJournal journal = new HandJournal(dir, KEY.getFingerprint(), NONCE, 1 << 16, 1, 64, null);
+        journal.append(hand(0, 5));
+        journal.close();
+        assertEquals(2, HandJournal.segments(dir).size());
+
+        try (HandJournal.Reader reader = HandJournal.read(dir, KEY)) {
+            HandRecord old = reader.next();
+            assertEquals(1, old.sequence);
+            assertEquals(HandRecord.NO_DEAL, old.deal);
+            assertEquals(3, old.playerId);
+            assertEquals(1, old.seat);
+            assertArrayEquals(new int[] {12, 11, 10}, old.playerCards);
+            assertArrayEquals(new int[] {0, 1, 2}, old.dealerCards);
+            assertEquals(-10, old.totalWinnings);
+            assertNull(HandReplay.check(old, Paytable.STANDARD));
+
+            HandRecord next = reader.next();
+            assertEquals(2, next.sequence);
+            assertArrayEquals(hand(0, 5).playerCards, next.playerCards);
+            assertFalse(reader.hasNext());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketOf_CoversValuesInOrder() {
+        long previousUpper = -1;
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value, "upper bound below value " + value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value, "value " + value + " fits an earlier bucket");
+            assertTrue(LatencyHistogram.upperBound(bucket) >= previousUpper);
+            previousUpper = LatencyHistogram.upperBound(bucket);
+        }
+        assertTrue(LatencyHistogram.bucketOf(Long.MAX_VALUE) < 64 * 16);
+    }
+
+    @Test
+    void testValueAtQuantile_WithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000L, histogram.getMax());
+
+        long p50 = histogram.valueAtQuantile(0.5);
+        long p99 = histogram.valueAtQuantile(0.99);
+        assertEquals(5_000_000, p50, 5_000_000 * 0.07);
+        assertEquals(9_900_000, p99, 9_900_000 * 0.07);
+        assertEquals(10_000_000L, histogram.valueAtQuantile(1.0));
+    }
+
+    @Test
+    void testValueAtQuantile_EmptyIsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtQuantile(0.99));
+        assertEquals(0, histogram.getCount());
+    }
+}
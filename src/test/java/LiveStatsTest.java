@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LiveStatsTest {
+
+    @Test
+    void testTheory_CoversEveryHandOnce() {
+        double sum = 0;
+        for (double probability : LiveStats.RANK_PROBABILITY) {
+            sum += probability;
+        }
+        assertEquals(1, sum, 1e-12);
+        assertEquals(52 / 22100.0, LiveStats.RANK_PROBABILITY[ThreeCardLogic.THREE_OF_A_KIND], 1e-12);
+        assertEquals(3744 / 22100.0, LiveStats.RANK_PROBABILITY[ThreeCardLogic.PAIR], 1e-12);
+        assertEquals(1 - LiveStats.RANK_PROBABILITY[ThreeCardLogic.HIGH_CARD], LiveStats.PAIR_PLUS_HIT_PROBABILITY, 1e-12);
+    }
+
+    @Test
+    void testWindow_CountsOnlyHandsSinceTheOldestSample() {
+        LiveStats stats = new LiveStats(null, 1000, 2000, 4, 0, message -> { });
+        // Three aces with Pair Plus, played and won; 2-3-5 folded
+        stats.record(Paytable.STANDARD, new int[] {0, 13, 26}, 10, 5, 0, 10, 150 + 20, 150, 0, false);
+        stats.record(Paytable.STANDARD, new int[] {1, 15, 30}, 10, 5, 0, 0, -15, 0, 0, true);
+        stats.sample();
+        stats.sample();
+        stats.sample();
+        stats.record(Paytable.STANDARD, new int[] {1, 15, 30}, 10, 0, 0, 0, -10, 0, 0, true);
+        stats.sample();
+
+        LiveStats.Window total = stats.sinceStart();
+        assertEquals(3, total.hands);
+        assertEquals(2 / 3.0, total.foldRate(), 1e-12);
+        assertEquals(0.5, total.pairPlusHitRate(), 1e-12);
+        assertEquals(1, total.rankCount(ThreeCardLogic.THREE_OF_A_KIND));
+        assertEquals((50 + 145) / 50.0, total.rtp(), 1e-12);
+
+        LiveStats.Window window = stats.window();
+        assertEquals(1, window.hands);
+        assertEquals(0, window.rtp(), 1e-12);
+        assertEquals(0, window.drift());
+    }
+
+    @Test
+    void testDrift_AlertsWhenPaymentsStrayFromExpectation(@TempDir Path dir) throws IOException {
+        StrategyTable strategy = StrategyTable.open(dir.resolve("strategy.table"));
+        List<String> alerts = new ArrayList<>();
+        LiveStats stats = new LiveStats(strategy, 1000, 60000, 4, 100, alerts::add);
+        // Seeded, so the drift bounds see the same hands every run
+        PokerGame game = new PokerGame(new Deck(CardRandom.splittable(19)));
+        for (int i = 0; i < 2000; i++) {
+            game.resetGame();
+            game.placeBets(10, 0);
+            game.dealHands();
+            int[] cards = game.getPlayerCards();
+            game.makePlayWager();
+            int winnings = game.calculateResult().getTotalWinnings();
+            stats.record(Paytable.STANDARD, cards, 10, 0, 0, 10, winnings, 0, 0, false);
+        }
+        stats.sample();
+        assertTrue(alerts.isEmpty(), alerts.toString());
+        assertTrue(Math.abs(stats.sinceStart().drift()) < 4);
+
+        // Every hand short-paid by $5
+        for (int i = 0; i < 2000; i++) {
+            game.resetGame();
+            game.placeBets(10, 0);
+            game.dealHands();
+            int[] cards = game.getPlayerCards();
+            game.makePlayWager();
+            stats.record(Paytable.STANDARD, cards, 10, 0, 0, 10, game.calculateResult().getTotalWinnings() - 5, 0, 0,
+                    false);
+        }
+        stats.sample();
+        assertEquals(2, alerts.size(), alerts.toString());
+        assertTrue(stats.sinceStart().drift() < -4);
+        assertEquals(2, stats.getAlertCount());
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+public class PaytableTest {
+
+    private static Properties properties(String text) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(text));
+        return properties;
+    }
+
+    @Test
+    void testParse_OverridesOnlyTheKeysGiven() throws IOException {
+        Paytable paytable = Paytable.parse("file", properties("name=bonus\npairPlus.straightFlush=41\n"
+                + "anteBonus.straight=1\nnotQualified.play=1\n"));
+        assertEquals("bonus", paytable.getName());
+        assertEquals(410, paytable.pairPlusWinnings(ThreeCardLogic.STRAIGHT_FLUSH, 10));
+        assertEquals(30, paytable.pairPlusWinnings(ThreeCardLogic.FLUSH, 10));
+        assertEquals(10, paytable.anteBonus(ThreeCardLogic.STRAIGHT, 10));
+        assertEquals(0, paytable.anteBonus(ThreeCardLogic.FLUSH, 10));
+        assertEquals(20, paytable.mainGameReturn(false, 0, 10, 10));
+        assertEquals(40, paytable.mainGameReturn(true, 1, 10, 10));
+
+        assertThrows(IllegalArgumentException.class, () -> Paytable.parse("file", properties("pairplus.pair=1")));
+        assertThrows(IllegalArgumentException.class, () -> Paytable.parse("file", properties("pairPlus.quads=1")));
+        assertThrows(IllegalArgumentException.class, () -> Paytable.parse("file", properties("win=-1")));
+    }
+
+    @Test
+    void testExact_MatchesMonteCarloUnderAnAnteBonus() throws IOException {
+        Paytable paytable = Paytable.parse("bonus", properties("anteBonus.straight=1\nanteBonus.trips=4\n"
+                + "anteBonus.straightFlush=5\n"));
+        StrategyTable outcomes = StrategyTable.compute();
+        HouseEdgeSimulator.Report exact = HouseEdgeSimulator.exact(paytable, outcomes);
+        HouseEdgeSimulator.Report standard = HouseEdgeSimulator.exact(Paytable.STANDARD, outcomes);
+        assertTrue(exact.optimalReturn() > standard.optimalReturn());
+        assertEquals(standard.pairPlusReturn, exact.pairPlusReturn, 1e-12);
+
+        HouseEdgeSimulator.Report sampled = HouseEdgeSimulator.monteCarlo(400_000, 7, paytable);
+        assertEquals(exact.q64HouseEdge, sampled.q64HouseEdge, 4 * sampled.standardError);
+        assertEquals(exact.q64PlayRate, sampled.q64PlayRate, 0.005);
+    }
+
+    @Test
+    void testRegistry_RefusesOutOfRangeReturnsAndKeepsTheOldPaytable(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("bonus.properties");
+        Files.write(file, Collections.singletonList("anteBonus.trips=4"));
+        List<String> log = new ArrayList<>();
+        StrategyTable outcomes = StrategyTable.compute();
+        PaytableRegistry registry = new PaytableRegistry(Arrays.asList("standard", file.toString()), outcomes,
+                0.5, 1.0, log::add);
+        assertSame(Paytable.STANDARD, registry.forTable(1));
+        assertEquals("bonus", registry.forTable(2).getName());
+        assertSame(Paytable.STANDARD, registry.forTable(3));
+
+        // Pays every Pair Plus bet at least double: refused, the loaded paytable stays
+        Files.write(file, Collections.singletonList("pairPlus.highCard=2"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        registry.reload();
+        assertEquals(4, registry.forTable(2).anteBonus(ThreeCardLogic.THREE_OF_A_KIND, 1));
+        assertTrue(log.get(log.size() - 1).contains("refused"), log.toString());
+
+        Files.write(file, Collections.singletonList("name=flush\npairPlus.flush=4"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        registry.reload();
+        assertEquals("flush", registry.forTable(2).getName());
+        assertEquals(4, registry.forTable(2).pairPlusWinnings(ThreeCardLogic.FLUSH, 1));
+
+        assertThrows(IllegalStateException.class, () -> new PaytableRegistry(
+                Collections.singletonList(file.toString()), outcomes, 0.5, 0.6, log::add));
+    }
+}
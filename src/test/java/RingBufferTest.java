@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RingBufferTest {
+
+    @Test
+    void testOffer_FailsWhenFullAndRecoversAfterPoll() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(99), "A full ring should reject instead of blocking");
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        assertEquals(4, ring.size());
+    }
+
+    @Test
+    void testPoll_KeepsFifoOrder() {
+        RingBuffer<String> ring = new RingBuffer<>(8);
+        ring.offer("a");
+        ring.offer("b");
+        ring.offer("c");
+        assertEquals("a", ring.poll());
+        assertEquals("b", ring.poll());
+        assertEquals("c", ring.poll());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void testConcurrentProducers_NothingLostOrDuplicated() throws InterruptedException {
+        RingBuffer<Long> ring = new RingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        AtomicLong received = new AtomicLong();
+        while (received.get() < seen.length) {
+            ring.drain(value -> {
+                assertFalse(seen[value.intValue()], "Value delivered twice: " + value);
+                seen[value.intValue()] = true;
+                received.incrementAndGet();
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(ring.poll());
+    }
+}
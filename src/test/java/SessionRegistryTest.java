@@ -0,0 +1,133 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SessionRegistryTest {
+
+    @Test
+    void testCreate_ConcurrentIdsAreUnique() throws Exception {
+        SessionRegistry registry = new SessionRegistry(1000, null);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(registry.create().getId());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(4000, ids.size());
+    }
+
+    @Test
+    void testSnapshot_RestoresTokensBalancesAndNextId(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sessions.snapshot");
+        SessionRegistry registry = new SessionRegistry(1000, file);
+        PlayerSession kept = registry.create();
+        registry.create(); // never resumable, not saved
+        String token = registry.issueToken(kept);
+        assertEquals(token, registry.issueToken(kept), "Token should be issued once");
+        kept.adjustBankroll(-250);
+        registry.close();
+
+        SessionRegistry restored = new SessionRegistry(1000, file);
+        PlayerSession session = restored.find(token);
+        assertNotNull(session);
+        assertEquals(kept.getId(), session.getId());
+        assertEquals(750, session.getBankroll());
+        assertTrue(session.isParked());
+        assertNull(restored.find("unknown"));
+        assertEquals(3, restored.create().getId());
+    }
+
+    private static HandRecord hand(int playerId, int net) {
+        int[] player = new int[3];
+        int[] dealer = new int[3];
+        DeckPool.deal(DeckPool.order(DeckKey.random(), 1, playerId), 0, player, dealer);
+        return new HandRecord(0, 1, playerId, 1, 0, HandRecord.FOLD, playerId, player, dealer, 10, 5, 0, 0, net, 0,
+                0, 0, null);
+    }
+
+    @Test
+    void testRecover_AppliesHandsJournaledAfterTheSnapshot(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sessions.snapshot");
+        Path journalDir = dir.resolve("journal");
+        HandJournal journal = new HandJournal(journalDir, 1, 1, 1 << 16, 1, 64, null);
+        SessionRegistry registry = new SessionRegistry(1000, file, 0);
+        registry.startSnapshots(60_000, journal, Assertions::fail);
+        PlayerSession session = registry.create();
+        String token = registry.issueToken(session);
+
+        session.settle(-15);
+        journal.append(hand(session.getId(), -15));
+        session.settle(20); // its record is still on the way when the snapshot is taken
+        journal.close();
+        registry.writeSnapshot();
+
+        // The crashed run journaled two more hands, the second after the snapshot
+        session.settle(-10);
+        journal = new HandJournal(journalDir, 1, 1, 1 << 16, 1, 64, null);
+        journal.append(hand(session.getId(), 20));
+        journal.append(hand(session.getId(), -10));
+        journal.append(hand(7, 10)); // a player who joined after the snapshot
+        journal.close();
+
+        SessionRegistry restored = new SessionRegistry(1000, file, 0);
+        assertEquals(1, restored.recover(journalDir));
+        assertEquals(995, restored.find(token).getBankroll());
+        assertEquals(995, session.getBankroll());
+        assertEquals(8, restored.create().getId(), "Ids seen in the journal should not be handed out again");
+    }
+
+    @Test
+    void testRecover_SkipsHandsWrittenBeforeTheBalanceWasRead(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sessions.snapshot");
+        Path journalDir = dir.resolve("journal");
+        SessionRegistry registry = new SessionRegistry(1000, file, 0);
+        PlayerSession session = registry.create();
+        String token = registry.issueToken(session);
+
+        // The snapshot starts after the commit of sequence 1, while sequence 2 is already written
+        session.settle(-15);
+        session.settle(20);
+        registry.written(hand(session.getId(), -15), 1);
+        registry.committed(1);
+        registry.written(hand(session.getId(), 20), 2);
+        registry.writeSnapshot();
+
+        session.settle(-10);
+        HandJournal journal = new HandJournal(journalDir, 1, 1, 1 << 16, 1, 64, null);
+        journal.append(hand(session.getId(), -15));
+        journal.append(hand(session.getId(), 20));
+        journal.append(hand(session.getId(), -10));
+        journal.close();
+
+        SessionRegistry restored = new SessionRegistry(1000, file, 0);
+        assertEquals(1, restored.recover(journalDir));
+        assertEquals(995, restored.find(token).getBankroll());
+    }
+
+    @Test
+    void testSnapshot_ForgetsSessionsIdlePastTheTtl(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sessions.snapshot");
+        SessionRegistry registry = new SessionRegistry(1000, file, 60_000);
+        PlayerSession idle = registry.create();
+        PlayerSession recent = registry.create();
+        String idleToken = registry.issueToken(idle);
+        String recentToken = registry.issueToken(recent);
+        idle.setLastSeenMillis(System.currentTimeMillis() - 120_000);
+
+        registry.writeSnapshot();
+        assertNull(registry.find(idleToken));
+        assertSame(recent, registry.find(recentToken));
+        assertEquals(1, new SessionRegistry(1000, file).size());
+    }
+}
@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SocketTransportTest {
+
+    @Test
+    void testSend_QueuesUpToTheLimitThenDrainsInOrder() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setWireQueueLimit(4);
+        ServerMetrics metrics = new ServerMetrics(Collections.emptyList(), null, null);
+        List<Runnable> writerTasks = new ArrayList<>();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(listener.getInetAddress(), listener.getLocalPort())) {
+            client.getOutputStream().write(WireCodec.hello(WireCodec.VERSION));
+            SocketTransport transport = new SocketTransport(listener.accept(), config, metrics, writerTasks::add,
+                    failure::set);
+            InputStream in = client.getInputStream();
+            new DataInputStream(in).readFully(new byte[8]); // stream header and hello reply
+
+            for (int i = 1; i <= 4; i++) {
+                PokerInfo info = new PokerInfo("GAME_RESULT");
+                info.setRounds(i);
+                transport.send(info);
+            }
+            assertEquals(4, transport.getBacklog());
+            assertEquals(1, writerTasks.size());
+            assertThrows(IOException.class, () -> transport.send(new PokerInfo("GAME_RESULT")));
+
+            writerTasks.get(0).run();
+            assertEquals(0, transport.getBacklog());
+            assertEquals(0, transport.getWriteStallNanos(System.nanoTime()));
+            for (int i = 1; i <= 4; i++) {
+                assertEquals(i, WireCodec.readFrame(in).getRounds());
+            }
+            assertNull(failure.get());
+            transport.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class StrategyTableTest {
+
+    @Test
+    void testOpen_BuildsThenMapsTheSameValues(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("strategy.table");
+        StrategyTable built = StrategyTable.open(file);
+
+        // Ace-King-Queen of mixed suits, 2-3-5 of mixed suits, three aces
+        int[][] hands = {{0, 25, 37}, {1, 15, 30}, {0, 13, 26}};
+        StrategyTable mapped = StrategyTable.open(file);
+        for (int[] hand : hands) {
+            double expected = settleAgainstEveryDealer(Paytable.STANDARD, hand);
+            assertEquals(expected, built.playExpectation(Paytable.STANDARD, hand[0], hand[1], hand[2]), 1e-9);
+            assertEquals(expected, mapped.playExpectation(Paytable.STANDARD, hand[2], hand[0], hand[1]), 1e-9);
+        }
+        assertTrue(mapped.playExpectation(Paytable.STANDARD, 0, 13, 26) > StrategyTable.FOLD);
+        assertTrue(mapped.playExpectation(Paytable.STANDARD, 1, 15, 30) < StrategyTable.FOLD);
+    }
+
+    @Test
+    void testCount_CoversEveryDealerHand() {
+        StrategyTable table = StrategyTable.compute();
+        for (int index : new int[] {0, 1000, ThreeCardLogic.HAND_COUNT - 1}) {
+            int total = 0;
+            for (int outcome = 0; outcome < StrategyTable.OUTCOMES; outcome++) {
+                total += table.count(index, outcome);
+            }
+            assertEquals(HouseEdgeSimulator.DEALER_HANDS, total);
+        }
+    }
+
+    @Test
+    void testOpen_RebuildsAStaleFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("strategy.table");
+        StrategyTable.open(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 8); // rules fingerprint
+            channel.write(ByteBuffer.allocate(4), 16); // first hand
+        }
+
+        StrategyTable reopened = StrategyTable.open(file);
+        assertEquals(settleAgainstEveryDealer(Paytable.STANDARD, new int[] {0, 1, 2}),
+                reopened.playExpectation(Paytable.STANDARD, 0, 1, 2), 1e-9);
+        assertEquals(16 + 4L * StrategyTable.OUTCOMES * ThreeCardLogic.HAND_COUNT, Files.size(file));
+    }
+
+    // Net per unit of ante from playing the hand, averaged over every dealer hand left in the deck
+    static double settleAgainstEveryDealer(Paytable paytable, int[] hand) {
+        long mask = (1L << hand[0]) | (1L << hand[1]) | (1L << hand[2]);
+        int playerKey = ThreeCardLogic.handKey(hand[0], hand[1], hand[2]);
+        int bonus = paytable.anteBonus(ThreeCardLogic.evalHand(hand[0], hand[1], hand[2]), 1);
+        long net = 0;
+        int dealers = 0;
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    if ((mask & ((1L << a) | (1L << b) | (1L << c))) != 0) continue;
+                    int dealerKey = ThreeCardLogic.handKey(a, b, c);
+                    net += paytable.mainGameReturn(ThreeCardLogic.qualifies(dealerKey),
+                            Integer.compare(playerKey, dealerKey), 1, 1) + bonus - 2;
+                    dealers++;
+                }
+            }
+        }
+        return net / (double) dealers;
+    }
+}
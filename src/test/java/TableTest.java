@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class TableTest {
+    private PokerServer server;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        ServerConfig config = new ServerConfig();
+        config.setJournal("none");
+        config.setSessionSnapshot("none");
+        config.setStrategyTable("none");
+        config.setDeckKeyFile("none");
+        config.setSessionBankroll(1000);
+        server = new PokerServer(config);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    void testPlaceBet_RefusesNegativeAndUncoveredBets() {
+        Table table = new Table(1, server, scheduler);
+        PlayerSession session = server.newSession();
+        int seat = table.join(session);
+
+        // A refused bet is never dealt, so folding cannot pay it back as winnings
+        table.placeBet(seat, -10, 0, 0);
+        table.placeBet(seat, 10, -500, 0);
+        table.placeBet(seat, 10, 0, -1);
+        table.placeBet(seat, 500, 1, 0); // the play bet would take the bankroll below zero
+        table.fold(seat);
+        assertEquals(1000, session.getBankroll());
+
+        // The session has no connection, so a covered bet is dealt at once
+        table.placeBet(seat, 10, 5, 0);
+        table.fold(seat);
+        assertEquals(985, session.getBankroll());
+    }
+
+    // Collects what the table sends, in order
+    private static class Recorder implements PokerTransport {
+        final List<PokerInfo> sent = new ArrayList<>();
+
+        @Override public void send(PokerInfo info) { sent.add(info); }
+        @Override public void close() { }
+        @Override public long getBufferedBytes() { return 0; }
+        @Override public int getRetainedObjects() { return 0; }
+        @Override public int getBacklog() { return 0; }
+        @Override public long getWriteStallNanos(long now) { return 0; }
+
+        List<String> types() {
+            List<String> types = new ArrayList<>();
+            for (PokerInfo info : sent) types.add(info.getMessageType());
+            sent.clear();
+            return types;
+        }
+    }
+
+    @Test
+    void testPlaceBet_DeliversAPendingResultAndRefusesOutOfPhase() {
+        Table table = new Table(1, server, scheduler);
+        PlayerSession session = server.newSession();
+        Recorder client = new Recorder();
+        new ClientHandler(client, server, session);
+        int seat = table.join(session);
+        client.types();
+
+        table.placeBet(seat, 10, 5, 0);
+        table.play(seat);
+        assertEquals(List.of("DEAL_CARDS", "SHOW_DEALER"), client.types());
+
+        // No CONTINUE: the next bet hands over the result first
+        table.placeBet(seat, 10, 0, 0);
+        assertEquals(List.of("GAME_RESULT", "ROUND_COMPLETE", "DEAL_CARDS"), client.types());
+
+        table.placeBet(seat, 10, 0, 0);
+        PokerInfo refused = client.sent.get(0);
+        assertEquals(List.of("PLACE_BETS"), client.types());
+        assertFalse(refused.isSuccess());
+        assertEquals("Finish the current round first", refused.getGameMessage());
+    }
+}
@@ -2,6 +2,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class ThreeCardLogicTest {
 
@@ -238,6 +239,48 @@ public class ThreeCardLogicTest {
                 "Player should win with Pair vs Dealer's High Card");
     }
 
+    @Test
+    void testCompareHands_PairValueBeforeKicker() {
+        // Card codes: suit * 13 + value - 1; dealer first
+        assertEquals(1, ThreeCardLogic.compareHands(0, 4, 13 + 4, 12, 13 + 12, 1),
+                "K-K-2 should beat A-5-5");
+        assertEquals(1, ThreeCardLogic.compareHands(8, 13 + 8, 12, 26 + 8, 39 + 8, 0),
+                "9-9-A should beat 9-9-K");
+        assertEquals(0, ThreeCardLogic.compareHands(8, 13 + 8, 12, 26 + 8, 39 + 8, 13 + 12));
+    }
+
+    @Test
+    void testCompareHands_AceLowStraightIsTheLowest() {
+        assertEquals(1, ThreeCardLogic.compareHands(0, 13 + 1, 2, 1, 13 + 2, 3), "2-3-4 should beat A-2-3");
+        assertEquals(-1, ThreeCardLogic.compareHands(0, 13 + 1, 2, 9, 13 + 11, 39 + 12),
+                "A-2-3 should beat 10-Q-K high card");
+    }
+
+    @Test
+    void testHandKey_SortedKeysRankEveryHand() {
+        int[] keys = new int[ThreeCardLogic.HAND_COUNT];
+        int n = 0;
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                for (int c = b + 1; c < 52; c++) {
+                    int key = ThreeCardLogic.handKey(a, b, c);
+                    keys[n++] = key;
+                    int high = Math.max(a % 13 == 0 ? 14 : a % 13 + 1, Math.max(b % 13 == 0 ? 14 : b % 13 + 1,
+                            c % 13 == 0 ? 14 : c % 13 + 1));
+                    assertEquals(key >>> 12 >= ThreeCardLogic.PAIR || high >= 12, ThreeCardLogic.qualifies(key));
+                }
+            }
+        }
+        Arrays.sort(keys);
+
+        // Every high card hand ranks below the weakest pair, 2-2-3
+        int twosWithThree = ThreeCardLogic.handKey(1, 13 + 1, 2);
+        int below = -Arrays.binarySearch(keys, twosWithThree - 1) - 1;
+        assertEquals(16500, below);
+        assertEquals(ThreeCardLogic.PAIR, keys[below] >>> 12);
+        assertEquals(twosWithThree, keys[below]);
+    }
+
     // ===================== dealerQualifies TESTS =====================
 
     @Test
@@ -325,4 +368,103 @@ public class ThreeCardLogicTest {
         assertTrue(qualifies,
                 "Dealer should qualify with Straight (any hand better than High Card qualifies)");
     }
+
+    // ===================== lookup table TESTS =====================
+
+    @Test
+    void testEvalHand_AllCombinationsDistribution() {
+        int[] counts = new int[6];
+        Suit[] suits = Suit.values();
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                for (int c = b + 1; c < 52; c++) {
+                    ArrayList<Card> hand = new ArrayList<>();
+                    hand.add(new Card(suits[a / 13], a % 13 + 1));
+                    hand.add(new Card(suits[b / 13], b % 13 + 1));
+                    hand.add(new Card(suits[c / 13], c % 13 + 1));
+                    counts[ThreeCardLogic.evalHand(hand)]++;
+                }
+            }
+        }
+
+        // Ace only plays low in a straight here, so Q-K-A counts as high card or flush
+        assertEquals(44, counts[ThreeCardLogic.STRAIGHT_FLUSH], "Straight Flush combinations");
+        assertEquals(52, counts[ThreeCardLogic.THREE_OF_A_KIND], "Three of a Kind combinations");
+        assertEquals(660, counts[ThreeCardLogic.STRAIGHT], "Straight combinations");
+        assertEquals(1100, counts[ThreeCardLogic.FLUSH], "Flush combinations");
+        assertEquals(3744, counts[ThreeCardLogic.PAIR], "Pair combinations");
+        assertEquals(16500, counts[ThreeCardLogic.HIGH_CARD], "High Card combinations");
+    }
+
+    @Test
+    void testHandIndex_IsPerfectHash() {
+        boolean[] seen = new boolean[ThreeCardLogic.HAND_COUNT];
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                for (int c = b + 1; c < 52; c++) {
+                    int index = ThreeCardLogic.handIndex(c, a, b);
+                    assertFalse(seen[index], "Each combination should map to its own slot");
+                    seen[index] = true;
+                }
+            }
+        }
+    }
+
+    // ===================== card code TESTS =====================
+
+    @Test
+    void testCardCodes_MatchListOverloads() {
+        int p0 = straightFlushHand.get(0).getCode();
+        int p1 = straightFlushHand.get(1).getCode();
+        int p2 = straightFlushHand.get(2).getCode();
+        int d0 = pairHand.get(0).getCode();
+        int d1 = pairHand.get(1).getCode();
+        int d2 = pairHand.get(2).getCode();
+
+        assertEquals(ThreeCardLogic.evalHand(straightFlushHand), ThreeCardLogic.evalHand(p0, p1, p2));
+        assertEquals(ThreeCardLogic.evalPPWinnings(pairHand, 10), ThreeCardLogic.evalPPWinnings(d0, d1, d2, 10));
+        assertEquals(ThreeCardLogic.compareHands(pairHand, straightFlushHand),
+                ThreeCardLogic.compareHands(d0, d1, d2, p0, p1, p2));
+        assertEquals(ThreeCardLogic.dealerQualifies(pairHand), ThreeCardLogic.dealerQualifies(d0, d1, d2));
+    }
+
+    @Test
+    void testEvalHands_MatchesScalarEvaluation() {
+        // Every hand, each card order, well past the size at which batches are split
+        int hands = 6 * ThreeCardLogic.HAND_COUNT;
+        int[] cards = new int[3 * hands];
+        int n = 0;
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    int[][] orders = {{a, b, c}, {a, c, b}, {b, a, c}, {b, c, a}, {c, a, b}, {c, b, a}};
+                    for (int[] order : orders) {
+                        System.arraycopy(order, 0, cards, 3 * n++, 3);
+                    }
+                }
+            }
+        }
+        int[] ranks = new int[hands];
+        int[] keys = new int[hands];
+        ThreeCardLogic.evalHands(cards, ranks, keys);
+        int[] ranksOnly = new int[hands];
+        ThreeCardLogic.evalHands(cards, ranksOnly, null);
+
+        for (int i = 0; i < hands; i++) {
+            int c0 = cards[3 * i], c1 = cards[3 * i + 1], c2 = cards[3 * i + 2];
+            assertEquals(ThreeCardLogic.evalHand(c0, c1, c2), ranks[i]);
+            assertEquals(ranks[i], ranksOnly[i]);
+            assertEquals(ThreeCardLogic.handKey(c0, c1, c2), keys[i]);
+        }
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> ThreeCardLogic.evalHands(cards, 0, hands, new int[hands - 1], null));
+    }
+
+    @Test
+    void testCardOf_ReturnsSharedInstance() {
+        Card queen = Card.of(Suit.SPADES, 12);
+        assertSame(queen, Card.of(queen.getCode()), "Card codes should resolve to the interned instance");
+        assertEquals(Suit.SPADES.ordinal() * 13 + 11, queen.getCode());
+        assertEquals(new Card(Suit.SPADES, 12), queen);
+    }
 }
\ No newline at end of file
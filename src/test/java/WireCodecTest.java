@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+public class WireCodecTest {
+
+    private PokerInfo gameResult() {
+        PokerGame game = new PokerGame(new Deck(CardRandom.splittable(3)));
+        game.placeBets(25, 10);
+        game.dealHands();
+        game.makePlayWager();
+        PokerInfo result = game.calculateResult();
+        result.setPlayerId(7);
+        result.setSuccess(true);
+        return result;
+    }
+
+    @Test
+    void testRoundTrip_KeepsEveryField() throws IOException {
+        PokerInfo original = gameResult();
+        original.setAnteBet(25);
+        original.setPairPlusBet(10);
+        original.setPlayBet(25);
+        original.setGameState("SETTLED");
+        original.setSessionToken("0123456789abcdef0123456789abcdef");
+        original.setBankroll(-40);
+        original.setRounds(1000);
+        original.setDetail(true);
+        original.setPlayAdvantage(-875);
+
+        byte[] frame = WireCodec.encodeFrame(original);
+        PokerInfo decoded = WireCodec.readFrame(new ByteArrayInputStream(frame));
+
+        assertEquals("GAME_RESULT", decoded.getMessageType());
+        assertEquals(original.getPlayerHand(), decoded.getPlayerHand());
+        assertEquals(original.getDealerHand(), decoded.getDealerHand());
+        assertSame(original.getPlayerHand().get(0), decoded.getPlayerHand().get(0), "Cards should decode to shared instances");
+        assertEquals(original.getDealerFaceUp(), decoded.getDealerFaceUp());
+        assertEquals(25, decoded.getAnteBet());
+        assertEquals(10, decoded.getPairPlusBet());
+        assertEquals(25, decoded.getPlayBet());
+        assertEquals(original.getTotalWinnings(), decoded.getTotalWinnings());
+        assertEquals(original.getGameMessage(), decoded.getGameMessage());
+        assertEquals(7, decoded.getPlayerId());
+        assertTrue(decoded.isSuccess());
+        assertEquals("SETTLED", decoded.getGameState());
+        assertEquals("0123456789abcdef0123456789abcdef", decoded.getSessionToken());
+        assertEquals(-40, decoded.getBankroll());
+        assertEquals(1000, decoded.getRounds());
+        assertTrue(decoded.isDetail());
+        assertEquals(-875, decoded.getPlayAdvantage());
+    }
+
+    @Test
+    void testRoundTrip_NegativeAmountsAndCustomType() throws IOException {
+        PokerInfo original = new PokerInfo("SOMETHING_NEW");
+        original.setTotalWinnings(-123456);
+
+        byte[] frame = WireCodec.encodeFrame(original);
+        PokerInfo decoded = WireCodec.readFrame(new ByteArrayInputStream(frame));
+
+        assertEquals("SOMETHING_NEW", decoded.getMessageType());
+        assertEquals(-123456, decoded.getTotalWinnings());
+        assertNull(decoded.getGameMessage());
+        assertTrue(decoded.getPlayerHand().isEmpty());
+    }
+
+    @Test
+    void testEncodeFrame_MuchSmallerThanSerialization() throws IOException {
+        PokerInfo result = gameResult();
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(result);
+        }
+        int binary = WireCodec.encodeFrame(result).length;
+
+        assertTrue(binary * 5 < serialized.size(),
+                "Binary frame (" + binary + " bytes) should be far smaller than serialization (" + serialized.size() + " bytes)");
+    }
+
+    @Test
+    void testDecode_RejectsBadCardCode() throws IOException {
+        byte[] frame = WireCodec.encodeFrame(gameResult());
+        int header = WireCodec.peekFrameLength(frame, 0, frame.length)[0];
+        // After the length: type, two-byte field mask, hand size, first card
+        frame[header + 4] = (byte) 60;
+        assertThrows(IOException.class, () -> WireCodec.readFrame(new ByteArrayInputStream(frame)));
+    }
+
+    @Test
+    void testHello_RecognisesOnlyTheMagic() {
+        assertEquals(WireCodec.VERSION, WireCodec.helloVersion(WireCodec.hello(WireCodec.VERSION), 0));
+        assertEquals(-1, WireCodec.helloVersion(WireCodec.STREAM_HEADER, 0));
+    }
+}